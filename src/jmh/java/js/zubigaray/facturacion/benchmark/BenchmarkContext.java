@@ -0,0 +1,24 @@
+package js.zubigaray.facturacion.benchmark;
+
+import js.zubigaray.facturacion.FacturacionAppApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Levanta la aplicación completa con el perfil "test" (H2 en memoria) para los benchmarks que usan la base de datos.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(FacturacionAppApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+}
@@ -0,0 +1,106 @@
+package js.zubigaray.facturacion.benchmark;
+
+import js.zubigaray.facturacion.dto.BillDetailRequest;
+import js.zubigaray.facturacion.entity.BillEntity;
+import js.zubigaray.facturacion.entity.ProductEntity;
+import js.zubigaray.facturacion.entity.RoleEntity;
+import js.zubigaray.facturacion.entity.UserEntity;
+import js.zubigaray.facturacion.repository.BillRepository;
+import js.zubigaray.facturacion.repository.ProductRepository;
+import js.zubigaray.facturacion.repository.RoleRepository;
+import js.zubigaray.facturacion.repository.UserRepository;
+import js.zubigaray.facturacion.service.BillService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creación de facturas contra H2 embebido y lectura del total de una factura ya persistida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillServiceBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int lines;
+
+    private ConfigurableApplicationContext context;
+    private BillService billService;
+    private BillRepository billRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Long userId;
+    private Long billId;
+    private List<BillDetailRequest> details;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        billService = context.getBean(BillService.class);
+        billRepository = context.getBean(BillRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        RoleEntity role = new RoleEntity();
+        role.setName("USER");
+        role = context.getBean(RoleRepository.class).save(role);
+
+        UserEntity user = new UserEntity();
+        user.setFullName("Benchmark User");
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("{noop}benchmark");
+        user.setRoles(new HashSet<>(Set.of(role)));
+        userId = context.getBean(UserRepository.class).save(user).getId();
+
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        details = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            ProductEntity product = new ProductEntity();
+            product.setName("Producto " + i);
+            product.setPrice(10.5 + i);
+            // Stock suficiente para todas las iteraciones del benchmark
+            product.setStock(Long.MAX_VALUE / 2);
+            details.add(new BillDetailRequest(productRepository.save(product).getId(), 2L));
+        }
+
+        billId = billService.createBill(userId, details).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BillEntity createBill() {
+        return billService.createBill(userId, details);
+    }
+
+    @Benchmark
+    public double readBillTotal() {
+        return readOnlyTransaction.execute(status -> billRepository.findById(billId).orElseThrow().getTotal());
+    }
+}
@@ -0,0 +1,58 @@
+package js.zubigaray.facturacion.benchmark;
+
+import js.zubigaray.facturacion.util.JwtUtil;
+import js.zubigaray.facturacion.util.SigningKey;
+import js.zubigaray.facturacion.util.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de firmar y verificar un access token según el algoritmo de firma.
+ * HS256 es la referencia anterior (secreto compartido); RS256 y EdDSA permiten verificar con la clave pública del JWKS.
+ * La verificación usa el parser precalculado por kid del JwtKeyRing, como el filtro en producción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAlgorithmBenchmark {
+
+    @Param({"HS256", "RS256", "EdDSA"})
+    public String algorithm;
+
+    private JwtUtil jwtUtil;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = JwtUtilBenchmark.newJwtUtil(SigningKey.generate(algorithm));
+        user = User.withUsername("benchmark").password("").roles("USER").build();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtUtil.verify(token);
+    }
+}
@@ -0,0 +1,99 @@
+package js.zubigaray.facturacion.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import js.zubigaray.facturacion.util.JwtKeyRing;
+import js.zubigaray.facturacion.util.JwtUtil;
+import js.zubigaray.facturacion.util.SigningKey;
+import js.zubigaray.facturacion.util.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de CPU de autenticar una petición con JWT.
+ * legacyFilterPath reproduce la implementación anterior (clave y parser reconstruidos en cada extracción,
+ * tres verificaciones de firma por petición); singleParseFilterPath es el camino actual del filtro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    static final String SECRET = "c2VjcmV0LWRlLWJlbmNobWFyay1wYXJhLWZpcm1hci10b2tlbnMtand0LWhzMjU2";
+
+    private JwtUtil jwtUtil;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = newJwtUtil();
+        user = User.withUsername("benchmark").password("").roles("USER").build();
+        token = jwtUtil.generateToken(user);
+    }
+
+    /** JwtUtil que firma con HS256 usando SECRET, para comparar con el camino anterior. */
+    static JwtUtil newJwtUtil() {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return newJwtUtil(new SigningKey("benchmark-hs256", "HS256", key, key, Instant.now()));
+    }
+
+    /** JwtUtil con un JwtKeyRing en memoria cuya clave activa es la indicada (sin base de datos). */
+    static JwtUtil newJwtUtil(SigningKey signingKey) {
+        JwtKeyRing keyRing = new JwtKeyRing("", false, "", 900_000L, 604_800_000L);
+        keyRing.replaceKeys(List.of(signingKey), signingKey);
+        JwtUtil jwtUtil = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyFilterPath() {
+        String username = legacyExtractAllClaims(token).getSubject();
+        String validatedUsername = legacyExtractAllClaims(token).getSubject();
+        Date expiration = legacyExtractAllClaims(token).getExpiration();
+        return username != null && validatedUsername.equals(user.getUsername()) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParseFilterPath() {
+        VerifiedToken verifiedToken = jwtUtil.verify(token);
+        return verifiedToken.subject().equals(user.getUsername()) && !verifiedToken.isExpired();
+    }
+
+    private static Claims legacyExtractAllClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
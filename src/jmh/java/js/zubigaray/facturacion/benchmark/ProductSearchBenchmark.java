@@ -0,0 +1,61 @@
+package js.zubigaray.facturacion.benchmark;
+
+import js.zubigaray.facturacion.util.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de búsqueda del índice de productos con un catálogo sintético de un millón de SKUs.
+ * Los nombres combinan categoría, marca, modelo, color y talle, así las consultas tienen desde
+ * pocas hasta cientos de miles de coincidencias.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final String[] CATEGORIES = {"Remera", "Pantalón", "Campera", "Zapatilla", "Buzo", "Camisa", "Gorra", "Medias"};
+    private static final String[] BRANDS = {"Acme", "Norte", "Pampa", "Andes", "Litoral", "Austral", "Cuyo", "Delta"};
+    private static final String[] COLORS = {"negro", "blanco", "azul", "rojo", "verde", "gris", "beige", "bordó"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "XXL"};
+
+    @Param({"1000000"})
+    public int products;
+
+    @Param({"zapatilla andes", "rem", "modelo 4821", "bordo xl"})
+    public String query;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = new ProductSearchIndex();
+        for (int id = 1; id <= products; id++) {
+            String name = CATEGORIES[random.nextInt(CATEGORIES.length)] + " "
+                    + BRANDS[random.nextInt(BRANDS.length)] + " modelo " + random.nextInt(10_000) + " "
+                    + COLORS[random.nextInt(COLORS.length)] + " " + SIZES[random.nextInt(SIZES.length)];
+            index.upsert(id, name, 1000 + random.nextInt(100_000) / 100.0);
+        }
+    }
+
+    @Benchmark
+    public ProductSearchIndex.SearchResult firstPage() {
+        return index.search(query, 0, 20);
+    }
+}
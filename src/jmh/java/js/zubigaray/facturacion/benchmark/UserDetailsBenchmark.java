@@ -0,0 +1,78 @@
+package js.zubigaray.facturacion.benchmark;
+
+import js.zubigaray.facturacion.entity.RoleEntity;
+import js.zubigaray.facturacion.entity.UserEntity;
+import js.zubigaray.facturacion.repository.RoleRepository;
+import js.zubigaray.facturacion.repository.UserRepository;
+import js.zubigaray.facturacion.service.CustomUserDetailsService;
+import js.zubigaray.facturacion.service.UserDetailsCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de UserDetails desde H2 embebido frente a la caché que usa JwtAuthenticationFilter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDetailsBenchmark {
+
+    private static final String USERNAME = "benchmark";
+
+    private ConfigurableApplicationContext context;
+    private CustomUserDetailsService userDetailsService;
+    private UserDetailsCache userDetailsCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        userDetailsService = context.getBean(CustomUserDetailsService.class);
+        userDetailsCache = context.getBean(UserDetailsCache.class);
+
+        RoleEntity role = new RoleEntity();
+        role.setName("USER");
+        role = context.getBean(RoleRepository.class).save(role);
+
+        UserEntity user = new UserEntity();
+        user.setFullName("Benchmark User");
+        user.setUsername(USERNAME);
+        user.setEmail("benchmark@example.com");
+        user.setPassword("{noop}benchmark");
+        user.setRoles(new HashSet<>(Set.of(role)));
+        context.getBean(UserRepository.class).save(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(USERNAME);
+    }
+
+    @Benchmark
+    public UserDetails cachedUserDetails() {
+        return userDetailsCache.get(USERNAME);
+    }
+}
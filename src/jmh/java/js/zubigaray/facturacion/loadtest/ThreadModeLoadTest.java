@@ -0,0 +1,152 @@
+package js.zubigaray.facturacion.loadtest;
+
+import js.zubigaray.facturacion.FacturacionAppApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prueba de carga que compara el throughput del modo de hilos de plataforma (por defecto) contra el de hilos virtuales.
+ * Levanta la aplicación con el perfil "test" una vez por modo y mantiene N conexiones concurrentes (2000 por defecto)
+ * contra el mismo endpoint durante un tiempo fijo, reportando peticiones por segundo, latencias y errores.
+ * <p>
+ * Ejecución: {@code ./mvnw -Pjmh test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=js.zubigaray.facturacion.loadtest.ThreadModeLoadTest}
+ * <p>
+ * Propiedades: loadtest.connections (2000), loadtest.duration (30s), loadtest.warmup (10s),
+ * loadtest.path (/actuator/health, que consulta la base de datos) y loadtest.token (Bearer opcional para endpoints protegidos).
+ */
+public final class ThreadModeLoadTest {
+
+    private ThreadModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = Integer.getInteger("loadtest.connections", 2000);
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s"));
+        String path = System.getProperty("loadtest.path", "/actuator/health");
+        String token = System.getProperty("loadtest.token");
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtualThreads)) {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                URI uri = URI.create("http://localhost:" + port + path);
+                run(uri, token, connections, warmup);
+                results.add(new Result(virtualThreads ? "virtual" : "platform", run(uri, token, connections, duration)));
+            }
+        }
+
+        System.out.printf("%n%-10s %12s %10s %10s %10s %8s%n", "modo", "req/s", "p50 ms", "p99 ms", "max ms", "errores");
+        for (Result result : results) {
+            Stats stats = result.stats();
+            System.out.printf("%-10s %12.1f %10.1f %10.1f %10.1f %8d%n", result.mode(), stats.throughput(),
+                    stats.percentile(0.50), stats.percentile(0.99), stats.percentile(1.0), stats.errors());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(FacturacionAppApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=" + 10_000,
+                        "server.tomcat.accept-count=" + 10_000,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+
+    /**
+     * Cada conexión es un cliente en su propio hilo virtual que envía peticiones en serie hasta que vence el plazo,
+     * de modo que el servidor siempre tiene exactamente "connections" peticiones en curso.
+     */
+    private static Stats run(URI uri, String token, int connections, Duration duration) throws InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[connections][];
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                int slot = i;
+                clients.submit(() -> {
+                    LatencyBuffer buffer = new LatencyBuffer();
+                    // Arranque escalonado para no abrir las N conexiones en el mismo instante
+                    LockSupport.parkNanos((long) (Math.random() * 100_000_000L));
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                        buffer.add(System.nanoTime() - start);
+                    }
+                    latencies[slot] = buffer.toArray();
+                });
+            }
+        }
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Stats(all, errors.get(), duration);
+    }
+
+    private record Result(String mode, Stats stats) {
+    }
+
+    private record Stats(long[] sortedLatencies, long errors, Duration duration) {
+
+        double throughput() {
+            return sortedLatencies.length / (duration.toNanos() / 1e9);
+        }
+
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+
+    /** Buffer de latencias por cliente, sin sincronización (cada cliente escribe solo el suyo). */
+    private static final class LatencyBuffer {
+        private long[] values = new long[256];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
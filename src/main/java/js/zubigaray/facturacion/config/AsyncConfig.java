@@ -0,0 +1,44 @@
+package js.zubigaray.facturacion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Executor acotado para la generación de reportes: pocos hilos (cada reporte recorre toda la tabla)
+     * y una cola corta; si la cola está llena la tarea se rechaza en lugar de acumular trabajo.
+     * Con spring.threads.virtual.enabled cada reporte corre en un hilo virtual, manteniendo el mismo límite
+     * de reportes simultáneos (las tareas que lo superan se rechazan).
+     * @return Executor usado por @Async("reportExecutor").
+     */
+    @Bean
+    public TaskExecutor reportExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${reports.executor.threads:2}") int threads,
+            @Value("${reports.executor.queue-capacity:10}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("report-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(threads);
+            executor.setRejectTasksWhenLimitReached(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
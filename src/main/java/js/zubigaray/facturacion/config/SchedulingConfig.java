@@ -0,0 +1,10 @@
+package js.zubigaray.facturacion.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas @Scheduled (mantenimiento en memoria: expiración del rate limiter de login, etc.)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,50 @@
+package js.zubigaray.facturacion.config.security;
+
+import js.zubigaray.facturacion.entity.RoleEntity;
+import js.zubigaray.facturacion.entity.UserEntity;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Principal autenticado: además del username, hash y autoridades de Spring Security, lleva el ID, email,
+ * nombre completo y roles del usuario, para que login y refresh armen la respuesta sin volver a la base de datos.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+    private final String email;
+    private final String fullName;
+    /** Nombres de los roles, sin el prefijo "ROLE_". */
+    private final List<String> roles;
+
+    private AuthenticatedUser(Long id, String username, String password, String email, String fullName, List<String> roles) {
+        super(username, password, roles.stream()
+                // Asegura el prefijo 'ROLE_' necesario para Spring Security
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
+                .toList());
+        this.id = id;
+        this.email = email;
+        this.fullName = fullName;
+        this.roles = roles;
+    }
+
+    /** Construye el principal a partir de la entidad (con sus roles ya cargados). */
+    public static AuthenticatedUser from(UserEntity user) {
+        List<String> roles = user.getRoles().stream()
+                .map(RoleEntity::getName)
+                .toList();
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(),
+                user.getEmail(), user.getFullName(), roles);
+    }
+
+    /** Copia sin el hash de la contraseña, para guardar en cachés. */
+    public AuthenticatedUser withoutPassword() {
+        return new AuthenticatedUser(id, getUsername(), "", email, fullName, roles);
+    }
+}
@@ -0,0 +1,128 @@
+package js.zubigaray.facturacion.config.security;
+
+import js.zubigaray.facturacion.exception.custom_exceptions.PasswordHashingBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder que ejecuta BCrypt (encode y matches) en un pool de hilos propio y acotado.
+ * Una ráfaga de logins o registros consume como máximo "threads" núcleos, y las peticiones que no entran
+ * en la cola se rechazan de inmediato con PasswordHashingBusyException (503) en lugar de ocupar la CPU
+ * que necesitan las peticiones baratas.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    /** Costo mínimo aceptado por la calibración (el valor por defecto de Spring Security). */
+    static final int MIN_STRENGTH = 10;
+    /** Costo máximo: cada punto duplica el tiempo de hash. */
+    static final int MAX_STRENGTH = 16;
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Duration retryAfter;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, Duration timeout, Duration retryAfter) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        log.info("BCrypt con costo {} en {} hilos (cola de {})", strength, threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Elige el costo de BCrypt cuyo tiempo de hash más se acerca (sin superarlo) a la latencia objetivo.
+     * Mide el costo mínimo y extrapola, ya que cada punto de costo duplica el tiempo.
+     * @param targetLatency Tiempo de hash deseado por contraseña.
+     * @return Costo entre MIN_STRENGTH y MAX_STRENGTH.
+     */
+    public static int calibrate(Duration targetLatency) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        long best = Long.MAX_VALUE;
+        // La primera medición incluye el calentamiento del JIT, por eso se toma el mínimo de varias
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-password");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        int strength = MIN_STRENGTH;
+        long estimated = best;
+        while (strength < MAX_STRENGTH && estimated * 2 <= targetLatency.toNanos()) {
+            strength++;
+            estimated *= 2;
+        }
+        log.info("Calibración de BCrypt: costo {} = {} ms (estimado {} ms, objetivo {} ms)",
+                MIN_STRENGTH, best / 1_000_000, estimated / 1_000_000, targetLatency.toMillis());
+        return strength;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            throw new PasswordHashingBusyException("Demasiadas solicitudes de autenticación, intente nuevamente", retryAfter);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new PasswordHashingBusyException("La verificación de la contraseña tardó demasiado", retryAfter);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se procesaba la contraseña", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,57 @@
+package js.zubigaray.facturacion.config.security;
+
+import js.zubigaray.facturacion.service.UserDetailsCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identidad del usuario autenticado para los controladores.
+ * El principal no siempre trae el ID (en modo STATELESS es un User armado con las claims del token): en ese caso
+ * se obtiene de UserDetailsCache, sin ir a la base de datos mientras la entrada esté en caché.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUser {
+
+    private final UserDetailsCache userDetailsCache;
+
+    /** ID del usuario autenticado. */
+    public Long id(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return ((AuthenticatedUser) userDetailsCache.get(authentication.getName())).getId();
+    }
+
+    public boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    /**
+     * Usuario sobre el que opera la petición: un ADMIN puede indicar cualquiera (o ninguno, para todos);
+     * los demás operan siempre sobre sí mismos.
+     * @param requestedUserId Usuario indicado en la petición (null si no se indicó).
+     * @return El usuario indicado, o el autenticado si no es ADMIN y no indicó ninguno.
+     * @throws AccessDeniedException Si un usuario sin rol ADMIN indica a otro usuario.
+     */
+    public Long resolveUserId(Authentication authentication, Long requestedUserId) {
+        if (isAdmin(authentication)) {
+            return requestedUserId;
+        }
+        requireSelf(authentication, requestedUserId);
+        return id(authentication);
+    }
+
+    /**
+     * Exige que la petición sea del propio usuario autenticado, salvo para ADMIN.
+     * @throws AccessDeniedException Si un usuario sin rol ADMIN indica a otro usuario.
+     */
+    public void requireSelf(Authentication authentication, Long requestedUserId) {
+        if (requestedUserId != null && !isAdmin(authentication) && !requestedUserId.equals(id(authentication))) {
+            throw new AccessDeniedException("Only ADMIN can operate on behalf of another user");
+        }
+    }
+}
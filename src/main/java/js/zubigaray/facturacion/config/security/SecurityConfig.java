@@ -2,6 +2,7 @@ package js.zubigaray.facturacion.config.security;
 
 import js.zubigaray.facturacion.config.security.filter.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,7 +15,6 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -23,6 +23,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -42,7 +43,7 @@ public class SecurityConfig {
      * @return La cadena de filtros configurada.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         http
                 // Deshabilita la protección CSRF (necesario para APIs REST sin estado)
                 .csrf(AbstractHttpConfigurer::disable)
@@ -50,13 +51,14 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 // Configura las reglas de autorización para las peticiones HTTP
                 .authorizeHttpRequests(auth -> auth
-                        // Endpoints públicos: Auth, Swagger, Health Check
+                        // Endpoints públicos: Auth, Swagger, Health Check, JWKS
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
-                                "/actuator/health"
+                                "/actuator/health",
+                                "/.well-known/jwks.json"
                         ).permitAll()
                         // Endpoints que requieren roles específicos (la convención `hasRole` espera el rol SIN el prefijo "ROLE_")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -73,7 +75,7 @@ public class SecurityConfig {
                         .authenticationEntryPoint(jwtAuthenticationEntryPoint)
                 )
                 // Establece el proveedor de autenticación personalizado
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 // Añade el filtro JWT personalizado ANTES del filtro de autenticación estándar de Spring
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -82,15 +84,16 @@ public class SecurityConfig {
 
     /**
      * Define el AuthenticationProvider: cómo Spring debe cargar usuarios y verificar contraseñas.
+     * @param passwordEncoder Codificador que verifica las contraseñas en su propio executor.
      * @return DaoAuthenticationProvider configurado.
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         // 1. Crear el DaoAuthenticationProvider
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
 
-        // 2. Llamar al método bean para obtener el PasswordEncoder
-        authProvider.setPasswordEncoder(passwordEncoder());
+        // 2. Usar el PasswordEncoder acotado
+        authProvider.setPasswordEncoder(passwordEncoder);
 
         return authProvider;
     }
@@ -107,11 +110,23 @@ public class SecurityConfig {
 
     /**
      * Bean para el codificador de contraseñas. Es crucial para guardar y verificar hashes de contraseñas.
-     * @return BCryptPasswordEncoder.
+     * BCrypt se ejecuta en un executor acotado; el costo se toma de la configuración o, si es 0,
+     * se calibra al arrancar para acercarse a la latencia objetivo.
+     * @return BoundedPasswordEncoder sobre BCrypt.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.bcrypt.strength:0}") int strength,
+            @Value("${security.password.bcrypt.target-latency:250ms}") Duration targetLatency,
+            @Value("${security.password.executor.threads:0}") int threads,
+            @Value("${security.password.executor.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.executor.timeout:5s}") Duration timeout,
+            @Value("${security.password.executor.retry-after:2s}") Duration retryAfter
+    ) {
+        int effectiveStrength = strength > 0 ? strength : BoundedPasswordEncoder.calibrate(targetLatency);
+        // Por defecto, la mitad de los núcleos: el resto queda libre para las peticiones que no hashean
+        int effectiveThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(effectiveStrength, effectiveThreads, queueCapacity, timeout, retryAfter);
     }
 
     /**
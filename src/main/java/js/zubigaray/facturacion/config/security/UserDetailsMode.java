@@ -0,0 +1,13 @@
+package js.zubigaray.facturacion.config.security;
+
+/**
+ * Origen de los UserDetails que usa JwtAuthenticationFilter en cada petición autenticada.
+ */
+public enum UserDetailsMode {
+    // Consulta la base de datos en cada petición
+    DATABASE,
+    // Caché en memoria acotada y con TTL delante de la base de datos
+    CACHE,
+    // Sin base de datos: las autoridades se toman de la claim "roles" del token
+    STATELESS
+}
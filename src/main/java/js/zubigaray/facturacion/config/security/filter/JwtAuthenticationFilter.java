@@ -5,12 +5,17 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import js.zubigaray.facturacion.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
+import js.zubigaray.facturacion.config.security.UserDetailsMode;
+import js.zubigaray.facturacion.service.AccessTokenDenylist;
+import js.zubigaray.facturacion.service.UserDetailsCache;
+import js.zubigaray.facturacion.util.VerifiedToken;
+import js.zubigaray.facturacion.util.VerifiedTokenCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -18,14 +23,31 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j // Herramienta de logging para errores
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final UserDetailsMode userDetailsMode;
+    private final AccessTokenDenylist accessTokenDenylist;
+
+    public JwtAuthenticationFilter(
+            VerifiedTokenCache verifiedTokenCache,
+            UserDetailsService userDetailsService,
+            UserDetailsCache userDetailsCache,
+            @Value("${security.jwt.user-details-mode:CACHE}") UserDetailsMode userDetailsMode,
+            AccessTokenDenylist accessTokenDenylist
+    ) {
+        this.accessTokenDenylist = accessTokenDenylist;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.userDetailsMode = userDetailsMode;
+    }
 
     /**
      * Se ejecuta en cada petición HTTP para verificar si hay un token JWT.
@@ -51,18 +73,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            // 2. Extraer el token
+            // 2. Extraer el token y verificarlo (firma y expiración), reutilizando verificaciones previas del mismo token
             jwt = authHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
+            VerifiedToken token = verifiedTokenCache.verify(jwt);
+            username = token.subject();
+
+            // 3. Un refresh token no autentica peticiones: solo se acepta en /api/auth/refresh y /api/auth/logout,
+            // que lo validan contra RefreshTokenStore (un token rotado o revocado no debe servir como Bearer)
+            if (token.isRefreshToken()) {
+                log.warn("Rejected refresh token used as access token for user {}", username);
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            // 4. Rechazar los tokens revocados (Bloom filter en memoria; la base de datos solo se consulta ante un acierto)
+            if (username != null && accessTokenDenylist.isRevoked(token)) {
+                log.warn("Rejected revoked access token for user {}", username);
+                filterChain.doFilter(request, response);
+                return;
+            }
 
-            // 3. Validar el token y establecer la autenticación
+            // 5. Establecer la autenticación
             // Solo procede si el username no es nulo y si el usuario NO está autenticado en el contexto actual
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Carga los detalles del usuario desde la DB
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Carga los detalles del usuario (DB, caché o claims del token según el modo configurado)
+                UserDetails userDetails = loadUserDetails(token);
 
-                // Valida que el token es legítimo y no ha expirado
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                // El token ya fue verificado (firma y expiración): solo resta comprobar que pertenece al usuario
+                if (username.equals(userDetails.getUsername())) {
                     // Crea un objeto de autenticación de Spring Security
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -84,4 +122,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Continúa la cadena de filtros
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Obtiene los UserDetails del usuario del token según security.jwt.user-details-mode.
+     * En modo STATELESS no se consulta la base de datos: los cambios de roles se aplican recién con un token nuevo.
+     */
+    private UserDetails loadUserDetails(VerifiedToken token) {
+        String username = token.subject();
+        return switch (userDetailsMode) {
+            case DATABASE -> userDetailsService.loadUserByUsername(username);
+            case CACHE -> userDetailsCache.get(username);
+            case STATELESS -> {
+                List<String> roles = token.roles();
+                yield User.withUsername(username)
+                        .password("")
+                        .authorities(roles == null ? new String[0] : roles.toArray(String[]::new))
+                        .build();
+            }
+        };
+    }
 }
\ No newline at end of file
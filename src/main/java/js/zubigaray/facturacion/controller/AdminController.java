@@ -4,10 +4,12 @@ import jakarta.validation.Valid;
 import js.zubigaray.facturacion.dto.RegisterRequest;
 import js.zubigaray.facturacion.dto.UserDTO;
 import js.zubigaray.facturacion.service.AdminService;
+import js.zubigaray.facturacion.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminController {
 
     private final AdminService adminService;
+    private final AuthService authService;
 
     /**
      * Endpoint para crear usuarios con roles específicos.
@@ -31,4 +34,15 @@ public class AdminController {
         // 201 Created
         return ResponseEntity.status(HttpStatus.CREATED).body(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint para revocar todas las sesiones de un usuario (refresh tokens y access tokens ya emitidos).
+     * Requiere el rol ADMIN.
+     */
+    @PostMapping("/users/{userId}/revoke-sessions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> revokeSessions(@PathVariable Long userId) {
+        authService.revokeAllSessions(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,10 +1,12 @@
 package js.zubigaray.facturacion.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import js.zubigaray.facturacion.dto.AuthRequest;
 import js.zubigaray.facturacion.dto.AuthResponse;
 import js.zubigaray.facturacion.dto.RegisterRequest;
 import js.zubigaray.facturacion.service.AuthService;
+import js.zubigaray.facturacion.service.LoginRateLimiter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginRateLimiter loginRateLimiter;
 
     /**
      * Endpoint para registrar un nuevo usuario.
@@ -30,10 +33,14 @@ public class AuthController {
 
     /**
      * Endpoint para iniciar sesión y obtener tokens JWT.
-     * Devuelve 200 OK.
+     * Devuelve 200 OK, o 429 si se superó el límite de intentos para el usuario o la IP.
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request, HttpServletRequest httpRequest) {
+        // El límite se aplica antes de entrar al servicio: los intentos excedidos no cuestan BCrypt, consultas
+        // ni conexiones. getRemoteAddr respeta X-Forwarded-For solo si server.forward-headers-strategy está
+        // configurado (proxy confiable)
+        loginRateLimiter.acquire(request.getUsername(), httpRequest.getRemoteAddr());
         AuthResponse response = authService.login(request);
         // 200 OK
         return ResponseEntity.ok(response);
@@ -49,4 +56,15 @@ public class AuthController {
         String token = refreshToken.substring(7);
         return ResponseEntity.ok(authService.refreshToken(token));
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint para cerrar la sesión: revoca el refresh token presentado.
+     * Devuelve 204 No Content.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String refreshToken) {
+        // Remueve el prefijo "Bearer "
+        authService.logout(refreshToken.substring(7));
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,145 @@
+package js.zubigaray.facturacion.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import js.zubigaray.facturacion.config.security.CurrentUser;
+import js.zubigaray.facturacion.dto.BillRequest;
+import js.zubigaray.facturacion.dto.BillResponse;
+import js.zubigaray.facturacion.dto.BulkBillRequest;
+import js.zubigaray.facturacion.dto.BulkBillResponse;
+import js.zubigaray.facturacion.dto.CursorPage;
+import js.zubigaray.facturacion.service.BillExportService;
+import js.zubigaray.facturacion.service.BillIdempotencyStore;
+import js.zubigaray.facturacion.service.BillIngestionService;
+import js.zubigaray.facturacion.service.BillService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/bills")
+@RequiredArgsConstructor
+@Validated
+public class BillController {
+
+    private final BillService billService;
+    private final BillExportService billExportService;
+    private final BillIngestionService billIngestionService;
+    private final BillIdempotencyStore billIdempotencyStore;
+    private final CurrentUser currentUser;
+
+    /**
+     * Endpoint para listar facturas activas con paginación por cursor (keyset).
+     * Para obtener la página siguiente se envía el nextCursor de la respuesta anterior.
+     * Un USER solo ve sus propias facturas; un ADMIN puede filtrar por cualquier usuario o listar todas.
+     * Devuelve 200 OK, o 403 Forbidden si un USER indica otro userId.
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<CursorPage<BillResponse>> findActive(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int size,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Authentication authentication
+    ) {
+        Long scopedUserId = currentUser.resolveUserId(authentication, userId);
+        // 200 OK
+        return ResponseEntity.ok(billService.findActivePage(scopedUserId, from, to, cursor, size));
+    }
+
+    /**
+     * Endpoint para crear una factura.
+     * Con el header Idempotency-Key los reintentos de la misma petición devuelven la factura original
+     * (con el header Idempotent-Replayed: true) en lugar de crear otra.
+     * Un USER solo puede crear facturas propias; un ADMIN puede crearlas a nombre de cualquier usuario.
+     * Devuelve 201 Created, 403 Forbidden si un USER indica otro userId, 409 Conflict si la petición original
+     * sigue en curso, 410 Gone si la factura original de la clave ya se anuló o archivó, o 422 Unprocessable Entity
+     * si la clave ya se usó con otra petición.
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<BillResponse> create(
+            @Valid @RequestBody BillRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) @Size(min = 1, max = 100) String idempotencyKey,
+            Authentication authentication
+    ) {
+        currentUser.requireSelf(authentication, request.getUserId());
+        if (idempotencyKey == null) {
+            // 201 Created
+            return ResponseEntity.status(HttpStatus.CREATED).body(billService.create(request));
+        }
+        BillIdempotencyStore.Result result = billIdempotencyStore.create(authentication.getName(), idempotencyKey, request);
+        // 201 Created (también en los reintentos, con la factura original)
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.bill());
+    }
+
+    /**
+     * Endpoint para la ingesta masiva de facturas (ej. lotes de terminales POS).
+     * Cada factura se acepta o rechaza de forma independiente; el resultado indica el ID creado o el motivo.
+     * Un USER solo puede cargar facturas propias; un ADMIN puede cargarlas a nombre de cualquier usuario.
+     * Devuelve 200 OK, o 403 Forbidden si un USER incluye facturas de otro usuario (no se procesa ninguna).
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<BulkBillResponse> bulkCreate(
+            @Valid @RequestBody BulkBillRequest request,
+            Authentication authentication
+    ) {
+        request.getBills().forEach(bill -> currentUser.requireSelf(authentication, bill.getUserId()));
+        // 200 OK (el detalle de aceptadas/rechazadas va en el cuerpo)
+        return ResponseEntity.ok(billIngestionService.ingest(request.getBills()));
+    }
+
+    /**
+     * Endpoint para anular (soft delete) una factura; sus ventas se descuentan de los agregados diarios.
+     * Requiere el rol ADMIN.
+     * Devuelve 204 No Content, o 404 Not Found si no existe o ya estaba anulada.
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        return billService.softDelete(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Endpoint para exportar todas las facturas activas con sus detalles en JSON.
+     * La respuesta se escribe en streaming mientras se lee la base de datos, con memoria constante.
+     * Requiere el rol ADMIN.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = billExportService::exportActive;
+        // 200 OK
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bills.json\"")
+                .body(body);
+    }
+}
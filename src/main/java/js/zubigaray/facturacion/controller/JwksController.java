@@ -0,0 +1,31 @@
+package js.zubigaray.facturacion.controller;
+
+import js.zubigaray.facturacion.util.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    /**
+     * Endpoint público con las claves para verificar los JWT (JWKS, RFC 7517).
+     * Los demás servicios verifican los tokens localmente eligiendo la clave por el kid del header.
+     * Devuelve 200 OK.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                // Permite cachear el documento: JwtKeyManager publica cada clave nueva al menos max-age (más la recarga
+                // de las demás instancias) antes de firmar con ella, así que ningún cliente ve un kid que no conoce
+                .cacheControl(CacheControl.maxAge(JwtKeyRing.JWKS_MAX_AGE).cachePublic())
+                .body(keyRing.jwks());
+    }
+}
@@ -0,0 +1,133 @@
+package js.zubigaray.facturacion.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import js.zubigaray.facturacion.dto.CursorPage;
+import js.zubigaray.facturacion.dto.ProductRequest;
+import js.zubigaray.facturacion.dto.ProductResponse;
+import js.zubigaray.facturacion.dto.SearchPage;
+import js.zubigaray.facturacion.service.ProductCatalogService;
+import js.zubigaray.facturacion.service.ProductSearchService;
+import js.zubigaray.facturacion.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+@Validated
+public class ProductController {
+
+    private final ProductCatalogService productCatalogService;
+    private final ProductService productService;
+    private final ProductSearchService productSearchService;
+
+    /**
+     * Endpoint para listar el catálogo de productos activos con paginación por cursor (keyset),
+     * con filtro opcional por rango de precio.
+     * Devuelve 200 OK, o 304 Not Modified si el If-None-Match coincide con el ETag actual.
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<CursorPage<ProductResponse>> findCatalog(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int size,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            WebRequest request
+    ) {
+        ProductCatalogService.Cached<CursorPage<ProductResponse>> page =
+                productCatalogService.findPage(cursor, size, minPrice, maxPrice);
+        if (request.checkNotModified(page.etag())) {
+            // 304 Not Modified (el ETag ya quedó en la respuesta)
+            return null;
+        }
+        // 200 OK; el cliente debe revalidar con If-None-Match antes de reutilizar la respuesta
+        return ResponseEntity.ok()
+                .eTag(page.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(page.value());
+    }
+
+    /**
+     * Endpoint para buscar productos activos por nombre (todos los términos, sin distinguir mayúsculas ni acentos),
+     * ordenados por relevancia y paginados por número de página.
+     * Devuelve 200 OK.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<SearchPage<ProductResponse>> search(
+            @RequestParam @NotBlank @Size(max = 100) String q,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(1000) int page,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size
+    ) {
+        return ResponseEntity.ok(productSearchService.search(q, page, size));
+    }
+
+    /**
+     * Endpoint para obtener un producto activo del catálogo.
+     * Devuelve 200 OK, 304 Not Modified si el ETag coincide, o 404 Not Found.
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ProductResponse> findById(@PathVariable Long id, WebRequest request) {
+        return productCatalogService.findById(id)
+                .map(product -> request.checkNotModified(product.etag())
+                        ? null
+                        : ResponseEntity.ok()
+                                .eTag(product.etag())
+                                .cacheControl(CacheControl.noCache())
+                                .body(product.value()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint para crear un producto. Requiere el rol ADMIN.
+     * Devuelve 201 Created.
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductResponse> create(@Valid @RequestBody ProductRequest request) {
+        // 201 Created
+        return ResponseEntity.status(HttpStatus.CREATED).body(productService.create(request));
+    }
+
+    /**
+     * Endpoint para actualizar un producto activo. Requiere el rol ADMIN.
+     * Devuelve 200 OK, o 404 Not Found si no existe o fue dado de baja.
+     */
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductResponse> update(@PathVariable Long id, @Valid @RequestBody ProductRequest request) {
+        return ResponseEntity.ok(productService.update(id, request));
+    }
+
+    /**
+     * Endpoint para dar de baja (soft delete) un producto. Requiere el rol ADMIN.
+     * Devuelve 204 No Content, o 404 Not Found si no existe.
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        return productService.softDelete(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
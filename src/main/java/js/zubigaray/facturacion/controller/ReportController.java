@@ -0,0 +1,66 @@
+package js.zubigaray.facturacion.controller;
+
+import js.zubigaray.facturacion.dto.ReportJobResponse;
+import js.zubigaray.facturacion.dto.ReportType;
+import js.zubigaray.facturacion.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final ReportService reportService;
+
+    /**
+     * Endpoint para solicitar un reporte Excel (BILLS o PRODUCT_SALES).
+     * La generación es asíncrona: devuelve 202 Accepted con el ID del job, o 503 Service Unavailable con Retry-After
+     * si la cola de generación está llena.
+     * Requiere el rol ADMIN.
+     */
+    @PostMapping("/excel/{type}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportJobResponse> submit(@PathVariable ReportType type) {
+        // 202 Accepted
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportService.submit(type));
+    }
+
+    /**
+     * Endpoint para consultar el estado de un reporte.
+     * Requiere el rol ADMIN.
+     */
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportJobResponse> status(@PathVariable String jobId) {
+        return ResponseEntity.ok(reportService.findById(jobId));
+    }
+
+    /**
+     * Endpoint para descargar un reporte terminado.
+     * Requiere el rol ADMIN.
+     */
+    @GetMapping("/{jobId}/download")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> download(@PathVariable String jobId) {
+        FileSystemResource file = new FileSystemResource(reportService.getFile(jobId));
+        return ResponseEntity.ok()
+                .contentType(XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"report-" + jobId + ".xlsx\"")
+                .body(file);
+    }
+}
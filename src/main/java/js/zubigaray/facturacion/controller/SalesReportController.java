@@ -0,0 +1,71 @@
+package js.zubigaray.facturacion.controller;
+
+import js.zubigaray.facturacion.dto.DailyProductSales;
+import js.zubigaray.facturacion.dto.DailyUserSales;
+import js.zubigaray.facturacion.service.SalesAggregateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports/sales")
+@RequiredArgsConstructor
+public class SalesReportController {
+
+    private final SalesAggregateService salesAggregateService;
+
+    /**
+     * Endpoint para obtener las ventas diarias por producto entre dos fechas inclusivas (yyyy-MM-dd),
+     * opcionalmente de un solo producto. Lee solo los agregados diarios.
+     * Requiere el rol ADMIN.
+     * Devuelve 200 OK.
+     */
+    @GetMapping("/products")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyProductSales>> productSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long productId
+    ) {
+        return ResponseEntity.ok(salesAggregateService.findProductSales(productId, from, to));
+    }
+
+    /**
+     * Endpoint para obtener la facturación diaria por usuario entre dos fechas inclusivas (yyyy-MM-dd),
+     * opcionalmente de un solo usuario. Lee solo los agregados diarios.
+     * Requiere el rol ADMIN.
+     * Devuelve 200 OK.
+     */
+    @GetMapping("/users")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyUserSales>> userSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long userId
+    ) {
+        return ResponseEntity.ok(salesAggregateService.findUserSales(userId, from, to));
+    }
+
+    /**
+     * Endpoint para recalcular los agregados desde las facturas activas (carga inicial o corrección).
+     * Descarta los eventos de facturas pendientes en el outbox (ya incluidos en el recálculo); la facturación
+     * concurrente espera a que termine, así que conviene ejecutarlo con poca actividad.
+     * Requiere el rol ADMIN.
+     * Devuelve 204 No Content.
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuild() {
+        salesAggregateService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,19 @@
+package js.zubigaray.facturacion.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana (factura + una línea de detalle) usada para exportar facturas sin cargar entidades.
+ */
+public record BillExportRow(
+        Long billId,
+        LocalDateTime dateTime,
+        Long userId,
+        String username,
+        double total,
+        Long productId,
+        Long quantity,
+        double unitPrice,
+        double subtotal
+) {
+}
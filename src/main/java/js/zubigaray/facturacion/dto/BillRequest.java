@@ -0,0 +1,24 @@
+package js.zubigaray.facturacion.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillRequest {
+
+    @NotNull(message = "User ID is required.")
+    private Long userId;
+
+    @NotEmpty(message = "At least one detail is required.")
+    private List<@Valid BillDetailRequest> details;
+}
@@ -0,0 +1,25 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillResponse {
+
+    private Long id;
+
+    private LocalDateTime dateTime;
+
+    private Long userId;
+
+    private String username;
+
+    private double total;
+}
@@ -0,0 +1,16 @@
+package js.zubigaray.facturacion.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Línea de una factura con los datos que alimentan los agregados diarios (productId null si la factura no tiene líneas).
+ */
+public record BillSaleLine(
+        LocalDateTime dateTime,
+        Long userId,
+        double total,
+        Long productId,
+        Long quantity,
+        Double subtotal
+) {
+}
@@ -0,0 +1,22 @@
+package js.zubigaray.facturacion.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillRequest {
+
+    @NotEmpty(message = "At least one bill is required.")
+    @Size(max = 10000, message = "A batch can contain at most 10000 bills.")
+    private List<@Valid BillRequest> bills;
+}
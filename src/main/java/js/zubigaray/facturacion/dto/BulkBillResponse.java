@@ -0,0 +1,21 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillResponse {
+
+    private int accepted;
+
+    private int rejected;
+
+    private List<BulkBillResult> results;
+}
@@ -0,0 +1,24 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillResult {
+
+    // Posición de la factura en el lote recibido
+    private int index;
+
+    private boolean accepted;
+
+    // ID de la factura creada (null si fue rechazada)
+    private Long billId;
+
+    // Motivo del rechazo (null si fue aceptada)
+    private String error;
+}
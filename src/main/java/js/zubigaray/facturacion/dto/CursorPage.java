@@ -0,0 +1,25 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por keyset: el cliente envía nextCursor para obtener la página siguiente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    // Cursor opaco de la última fila devuelta (null si no hay más resultados)
+    private String nextCursor;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,15 @@
+package js.zubigaray.facturacion.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Ventas de un producto en un día (facturas activas).
+ */
+public record DailyProductSales(
+        LocalDate date,
+        Long productId,
+        long quantity,
+        double revenue,
+        long billCount
+) {
+}
@@ -0,0 +1,14 @@
+package js.zubigaray.facturacion.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Facturación de un usuario en un día (facturas activas).
+ */
+public record DailyUserSales(
+        LocalDate date,
+        Long userId,
+        long billCount,
+        double revenue
+) {
+}
@@ -0,0 +1,16 @@
+package js.zubigaray.facturacion.dto;
+
+import java.time.Instant;
+
+/**
+ * Evento del outbox tal como se guarda en outbox_events.
+ */
+public record OutboxEventRecord(
+        Long id,
+        String eventType,
+        Long aggregateId,
+        String payload,
+        Instant createdAt,
+        int attempts
+) {
+}
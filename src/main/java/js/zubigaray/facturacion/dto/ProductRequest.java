@@ -0,0 +1,28 @@
+package js.zubigaray.facturacion.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRequest {
+
+    @NotBlank(message = "Name is required.")
+    private String name;
+
+    @NotNull(message = "Price is required.")
+    @DecimalMin(value = "0.0", message = "Price must be positive.")
+    private Double price;
+
+    @NotNull(message = "Stock is required.")
+    @Min(value = 0, message = "Stock must be positive.")
+    private Long stock;
+}
@@ -0,0 +1,23 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Producto del catálogo. No incluye el stock: cambia con cada venta (sin pasar por ProductService)
+ * y dejaría obsoletas las páginas cacheadas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductResponse {
+
+    private Long id;
+
+    private String name;
+
+    private double price;
+}
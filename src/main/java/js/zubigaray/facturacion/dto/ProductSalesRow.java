@@ -0,0 +1,12 @@
+package js.zubigaray.facturacion.dto;
+
+/**
+ * Ventas acumuladas de un producto (facturas activas).
+ */
+public record ProductSalesRow(
+        Long productId,
+        String productName,
+        Long quantity,
+        Double revenue
+) {
+}
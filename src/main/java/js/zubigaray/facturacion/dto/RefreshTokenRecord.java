@@ -0,0 +1,14 @@
+package js.zubigaray.facturacion.dto;
+
+import java.time.Instant;
+
+/** Proyección de una fila de refresh_tokens, usada por el índice en memoria del RefreshTokenStore. */
+public record RefreshTokenRecord(
+        String jti,
+        Long userId,
+        String familyId,
+        Instant issuedAt,
+        Instant expiresAt,
+        boolean used
+) {
+}
@@ -0,0 +1,29 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobResponse {
+
+    private String id;
+
+    private ReportType type;
+
+    private ReportJobStatus status;
+
+    private long rowsWritten;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.dto;
+
+public enum ReportJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.dto;
+
+public enum ReportType {
+    // Una fila por línea de factura activa
+    BILLS,
+    // Unidades vendidas e ingresos acumulados por producto
+    PRODUCT_SALES
+}
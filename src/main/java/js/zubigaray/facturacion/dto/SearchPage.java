@@ -0,0 +1,27 @@
+package js.zubigaray.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados de una búsqueda ordenada por relevancia (paginada por número de página).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPage<T> {
+
+    private List<T> items;
+
+    private int page;
+
+    private int size;
+
+    // Total de coincidencias de la búsqueda
+    private long totalHits;
+}
@@ -0,0 +1,33 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Revocación de access tokens: se rechazan los tokens del usuario (username) emitidos antes de revoked_at.
+ * La fila deja de ser necesaria en expires_at, cuando todos esos tokens ya vencieron.
+ * Se accede con JdbcTemplate (AccessTokenRevocationRepository); la entidad define el esquema.
+ */
+@Table(name = "access_token_revocations", indexes = {
+        @Index(name = "idx_access_token_revocations_expires_at", columnList = "expires_at")
+})
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccessTokenRevocationEntity {
+
+    @Id
+    @Column(length = 50)
+    private String username;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
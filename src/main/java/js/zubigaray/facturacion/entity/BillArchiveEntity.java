@@ -0,0 +1,41 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Factura archivada (anulada o más antigua que la retención), movida desde bills por BillArchiveService.
+ * Conserva el ID y los valores originales; sin claves foráneas, para que archivar no bloquee usuarios ni productos.
+ * Se accede con JdbcTemplate (BillArchiveRepository); la entidad define el esquema.
+ */
+@Table(name = "bills_archive")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BillArchiveEntity {
+
+    @Id
+    private Long id;
+
+    @Column(name = "date_time", nullable = false)
+    private LocalDateTime dateTime;
+
+    // false si se archivó por estar anulada
+    @Column(nullable = false)
+    private boolean active;
+
+    @Column(nullable = false)
+    private double total;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
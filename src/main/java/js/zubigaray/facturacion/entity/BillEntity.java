@@ -2,25 +2,48 @@ package js.zubigaray.facturacion.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-@Table(name = "bills")
+@Table(
+        name = "bills",
+        indexes = {
+                // Listado keyset de facturas activas ordenadas por fecha
+                @Index(name = "idx_bills_active_date_time_id", columnList = "active, date_time, id"),
+                // Listado keyset de facturas activas de un usuario
+                @Index(name = "idx_bills_user_active_id", columnList = "user_id, active, id")
+        }
+)
+// Soft delete: las consultas de entidades (JPQL, derivadas, colecciones) nunca cargan facturas anuladas.
+// Los agregados y la exportación leen por JdbcTemplate o proyecciones y filtran el flag explícitamente.
+@SQLRestriction("active = true")
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class BillEntity {
 
+    // Generador de tabla con optimizador pooled: Hibernate reserva bloques de 50 IDs, lo que permite
+    // insertar facturas en lotes JDBC (con IDENTITY cada INSERT debe ejecutarse por separado)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bill_id_generator")
+    @TableGenerator(
+            name = "bill_id_generator",
+            table = "id_generators",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "bills",
+            allocationSize = 50
+    )
     private Long id;
 
     @NotNull
@@ -30,6 +53,10 @@ public class BillEntity {
     // Soft delete
     private boolean active = true;
 
+    // Total persistido al crear la factura (suma de los subtotales de los detalles)
+    @DecimalMin("0.0")
+    private double total;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private UserEntity user;
@@ -42,11 +69,4 @@ public class BillEntity {
     )
     @JsonIgnore
     private List<BillUser> details = new ArrayList<>();
-
-    // Valor total calculado dinámicamente
-    public double getTotal() {
-        return details.stream()
-                .mapToDouble(d -> d.getProduct().getPrice() * d.getQuantity())
-                .sum();
-    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package js.zubigaray.facturacion.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -34,7 +35,12 @@ public class BillUser {
     @Min(1)
     private Long quantity;
 
-    public double getSubtotal() {
-        return product.getPrice() * quantity;
-    }
+    // Precio del producto al momento de facturar (no cambia si luego se edita el producto)
+    @DecimalMin("0.0")
+    @Column(name = "unit_price")
+    private double unitPrice;
+
+    // Subtotal persistido (unitPrice * quantity) calculado al crear la factura
+    @DecimalMin("0.0")
+    private double subtotal;
 }
\ No newline at end of file
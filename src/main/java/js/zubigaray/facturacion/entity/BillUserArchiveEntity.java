@@ -0,0 +1,30 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Detalle de una factura archivada (bills_archive), movido desde bill_user junto con su factura.
+ * Se accede con JdbcTemplate (BillArchiveRepository); la entidad define el esquema.
+ */
+@Table(name = "bill_user_archive")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BillUserArchiveEntity {
+
+    @EmbeddedId
+    private BillUserId id;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(name = "unit_price", nullable = false)
+    private double unitPrice;
+
+    @Column(nullable = false)
+    private double subtotal;
+}
@@ -0,0 +1,40 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ventas de un producto en un día (facturas activas), mantenidas de forma incremental por SalesAggregateService.
+ * Los reportes leen esta tabla en lugar de recorrer bill_user: el costo depende de los días consultados,
+ * no de la cantidad de líneas facturadas.
+ */
+@Table(
+        name = "daily_product_sales",
+        indexes = {
+                // Serie diaria de un producto (la clave primaria empieza por la fecha)
+                @Index(name = "idx_daily_product_sales_product_date", columnList = "product_id, sales_date")
+        }
+)
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyProductSalesEntity {
+
+    @EmbeddedId
+    private DailyProductSalesId id;
+
+    // Unidades vendidas
+    @Column(nullable = false)
+    private long quantity;
+
+    // Suma de los subtotales
+    @Column(nullable = false)
+    private double revenue;
+
+    // Facturas que incluyen el producto
+    @Column(name = "bill_count", nullable = false)
+    private long billCount;
+}
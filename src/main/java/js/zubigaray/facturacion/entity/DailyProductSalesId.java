@@ -0,0 +1,25 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyProductSalesId implements Serializable {
+
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "product_id")
+    private Long productId;
+}
@@ -0,0 +1,34 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Facturación de un usuario en un día (facturas activas), mantenida de forma incremental por SalesAggregateService.
+ */
+@Table(
+        name = "daily_user_sales",
+        indexes = {
+                // Serie diaria de un usuario (la clave primaria empieza por la fecha)
+                @Index(name = "idx_daily_user_sales_user_date", columnList = "user_id, sales_date")
+        }
+)
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyUserSalesEntity {
+
+    @EmbeddedId
+    private DailyUserSalesId id;
+
+    // Facturas emitidas
+    @Column(name = "bill_count", nullable = false)
+    private long billCount;
+
+    // Suma de los totales de las facturas
+    @Column(nullable = false)
+    private double revenue;
+}
@@ -0,0 +1,41 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Idempotency-Key ya procesado en la creación de facturas: se inserta en la misma transacción que la factura,
+ * de modo que un reintento (de esta u otra instancia) devuelve la factura original en lugar de crear otra.
+ * Se accede con JdbcTemplate (IdempotencyKeyRepository); la entidad define el esquema.
+ */
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyKeyEntity {
+
+    // Usuario autenticado + ":" + Idempotency-Key (cada usuario tiene su propio espacio de claves)
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    // SHA-256 de la petición original: la misma clave con otra petición se rechaza
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "bill_id", nullable = false)
+    private Long billId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,44 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Clave de firma de JWT (una por kid), compartida por todas las instancias de la aplicación.
+ * Contiene la clave privada: el acceso a esta tabla debe restringirse como el de cualquier secreto.
+ * Se accede con JdbcTemplate (JwtSigningKeyRepository); la entidad define el esquema.
+ */
+@Table(name = "jwt_signing_keys")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JwtSigningKeyEntity {
+
+    @Id
+    @Column(length = 36)
+    private String kid;
+
+    // Algoritmo JWS: HS256, RS256 o EdDSA
+    @Column(nullable = false, length = 10)
+    private String algorithm;
+
+    // Algoritmo de la clave Java (RSA, EdDSA, HmacSHA256) para reconstruirla con KeyFactory
+    @Column(name = "key_algorithm", nullable = false, length = 20)
+    private String keyAlgorithm;
+
+    @Lob
+    @Column(name = "signing_key", nullable = false)
+    private byte[] signingKey;
+
+    @Lob
+    @Column(name = "verification_key", nullable = false)
+    private byte[] verificationKey;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
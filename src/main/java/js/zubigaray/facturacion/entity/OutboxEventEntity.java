@@ -0,0 +1,51 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Evento de dominio pendiente de entrega (outbox transaccional). Se inserta en la misma transacción que el cambio
+ * que lo origina y OutboxDispatcher lo borra al entregarlo; si un listener falla se reintenta más tarde.
+ * Se accede con JdbcTemplate (OutboxRepository); la entidad define el esquema.
+ */
+@Table(name = "outbox_events", indexes = {
+        // Eventos pendientes de una factura (el archivado no mueve facturas con eventos sin entregar)
+        @Index(name = "idx_outbox_events_aggregate_id", columnList = "aggregate_id")
+})
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", length = 100, nullable = false)
+    private String eventType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    // Evento serializado en JSON
+    @Column(length = 4000, nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // No se entrega antes de este momento (espera entre reintentos)
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
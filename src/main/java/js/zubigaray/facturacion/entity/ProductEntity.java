@@ -9,11 +9,25 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.util.ArrayList;
 import java.util.List;
 
-@Table(name = "products")
+@Table(
+        name = "products",
+        indexes = {
+                // Catálogo paginado por keyset (productos activos ordenados por ID)
+                @Index(name = "idx_products_active_id", columnList = "active, id"),
+                // Productos activos por rango de precio (findByPriceRange)
+                @Index(name = "idx_products_active_price", columnList = "active, price"),
+                // Productos activos por nombre
+                @Index(name = "idx_products_active_name", columnList = "active, name")
+        }
+)
+// Soft delete: las consultas de entidades (JPQL, derivadas, colecciones) nunca cargan productos inactivos.
+// Las bajas, las lecturas por ID y los recorridos con JdbcTemplate deben seguir comprobando el flag.
+@SQLRestriction("active = true")
 @Entity
 @Data
 @AllArgsConstructor
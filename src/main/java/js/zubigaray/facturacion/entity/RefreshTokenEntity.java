@@ -0,0 +1,44 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Refresh token emitido (uno por jti). Los tokens de una misma sesión comparten family_id: cada refresh
+ * marca el token usado y emite otro en la misma familia, lo que permite detectar la reutilización.
+ * Se accede con JdbcTemplate (RefreshTokenRepository); la entidad define el esquema.
+ */
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_refresh_tokens_family_id", columnList = "family_id")
+})
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenEntity {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
+
+    @Column(name = "issued_at", nullable = false)
+    private Instant issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // true una vez rotado: presentarlo de nuevo es una reutilización
+    @Column(nullable = false)
+    private boolean used;
+}
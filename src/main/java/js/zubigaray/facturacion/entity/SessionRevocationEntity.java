@@ -0,0 +1,27 @@
+package js.zubigaray.facturacion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Revocación de todas las sesiones de un usuario: los refresh tokens emitidos antes de revoked_before
+ * se rechazan, sin tener que borrar ni recorrer sus filas.
+ */
+@Table(name = "session_revocations")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionRevocationEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_before", nullable = false)
+    private Instant revokedBefore;
+}
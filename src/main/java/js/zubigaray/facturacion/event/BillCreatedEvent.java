@@ -0,0 +1,16 @@
+package js.zubigaray.facturacion.event;
+
+/**
+ * Se creó una factura (individual o por ingesta masiva).
+ */
+public record BillCreatedEvent(
+        Long billId,
+        Long userId,
+        double total
+) implements DomainEvent {
+
+    @Override
+    public Long aggregateId() {
+        return billId;
+    }
+}
@@ -0,0 +1,14 @@
+package js.zubigaray.facturacion.event;
+
+/**
+ * Se anuló (soft delete) una factura que estaba activa.
+ */
+public record BillVoidedEvent(
+        Long billId
+) implements DomainEvent {
+
+    @Override
+    public Long aggregateId() {
+        return billId;
+    }
+}
@@ -0,0 +1,12 @@
+package js.zubigaray.facturacion.event;
+
+/**
+ * Evento de dominio publicado a través del outbox (OutboxService): se guarda en la misma transacción que el cambio
+ * y OutboxDispatcher lo entrega después a los @EventListener en proceso, al menos una vez.
+ * Las implementaciones son records serializables con Jackson.
+ */
+public interface DomainEvent {
+
+    // ID de la entidad afectada (se guarda en outbox_events.aggregate_id)
+    Long aggregateId();
+}
@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+// Se usa esta excepción cuando se reintenta un Idempotency-Key cuya factura original ya fue anulada o archivada.
+public class IdempotencyKeyBillGoneException extends RuntimeException {
+    public IdempotencyKeyBillGoneException(String message) {
+        super(message);
+    }
+}
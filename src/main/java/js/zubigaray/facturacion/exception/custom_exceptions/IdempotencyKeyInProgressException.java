@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+// Se usa esta excepción cuando la petición original de un Idempotency-Key sigue en curso y no terminó a tiempo.
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
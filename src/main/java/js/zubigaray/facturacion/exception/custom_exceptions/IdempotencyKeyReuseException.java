@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+// Se usa esta excepción cuando se reutiliza un Idempotency-Key con una petición distinta a la original.
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
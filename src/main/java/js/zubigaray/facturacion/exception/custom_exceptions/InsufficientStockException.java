@@ -0,0 +1,16 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+// Se usa esta excepción cuando no se puede reservar el stock solicitado de un producto (sin stock o inactivo).
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+
+    public InsufficientStockException(Long productId) {
+        super("Not enough stock for product ID: " + productId);
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,17 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Se usa esta excepción cuando el executor de BCrypt está saturado y la petición se rechaza sin hashear la contraseña.
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
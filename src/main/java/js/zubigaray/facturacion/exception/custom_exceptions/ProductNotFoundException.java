@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+// Se usa esta excepción cuando se modifica un producto que no existe (o ya fue dado de baja).
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+import org.springframework.security.authentication.BadCredentialsException;
+
+// Se usa esta excepción cuando se presenta un refresh token ya rotado: la sesión completa (familia) queda revocada.
+// Extiende BadCredentialsException para responder 401 como cualquier otro token inválido.
+public class RefreshTokenReuseException extends BadCredentialsException {
+    public RefreshTokenReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Se usa esta excepción cuando la cola de generación de reportes está llena y el pedido se rechaza sin encolarlo.
+@Getter
+public class ReportExecutorBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ReportExecutorBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
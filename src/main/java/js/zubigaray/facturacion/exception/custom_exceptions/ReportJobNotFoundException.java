@@ -0,0 +1,8 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+// Se usa esta excepción cuando se consulta o descarga un reporte que no existe (o ya fue eliminado).
+public class ReportJobNotFoundException extends RuntimeException {
+    public ReportJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package js.zubigaray.facturacion.exception.custom_exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Se usa esta excepción cuando se superan los intentos de login permitidos para un usuario o una IP.
+@Getter
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyLoginAttemptsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
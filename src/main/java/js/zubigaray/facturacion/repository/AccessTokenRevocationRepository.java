@@ -0,0 +1,64 @@
+package js.zubigaray.facturacion.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/** Acceso JDBC a access_token_revocations. Participa de la transacción JPA en curso (misma conexión). */
+@Repository
+@RequiredArgsConstructor
+public class AccessTokenRevocationRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO access_token_revocations (username, revoked_at, expires_at)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE revoked_at = VALUES(revoked_at), expires_at = VALUES(expires_at)
+            """;
+
+    private static final String FIND_REVOKED_AT_SQL = """
+            SELECT revoked_at
+            FROM access_token_revocations
+            WHERE username = ? AND expires_at > ?
+            """;
+
+    private static final String FIND_ACTIVE_USERNAMES_SQL = """
+            SELECT username
+            FROM access_token_revocations
+            WHERE expires_at > ?
+            """;
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM access_token_revocations WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(String username, Instant revokedAt, Instant expiresAt) {
+        jdbcTemplate.update(UPSERT_SQL, username, Timestamp.from(revokedAt), Timestamp.from(expiresAt));
+    }
+
+    /** Momento de la revocación vigente del usuario, si existe (búsqueda por clave primaria). */
+    public Optional<Instant> findRevokedAt(String username, Instant now) {
+        return jdbcTemplate.query(FIND_REVOKED_AT_SQL,
+                        (rs, rowNum) -> rs.getTimestamp("revoked_at").toInstant(),
+                        username, Timestamp.from(now))
+                .stream()
+                .findFirst();
+    }
+
+    public List<String> findActiveUsernames(Instant now) {
+        List<String> usernames = new ArrayList<>();
+        jdbcTemplate.query(FIND_ACTIVE_USERNAMES_SQL, rs -> {
+            usernames.add(rs.getString("username"));
+        }, Timestamp.from(now));
+        return usernames;
+    }
+
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(now));
+    }
+}
@@ -0,0 +1,90 @@
+package js.zubigaray.facturacion.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acceso JDBC al archivo de facturas (bills_archive y bill_user_archive). Participa de la transacción en curso.
+ * <p>
+ * Las facturas a archivar se bloquean con FOR UPDATE SKIP LOCKED recorriendo idx_bills_active_date_time_id;
+ * las que tienen eventos pendientes en el outbox (todos los eventos son de facturas: aggregate_id = ID de factura)
+ * se dejan para más adelante, porque su entrega todavía necesita leer las líneas.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BillArchiveRepository {
+
+    private static final String LOCK_VOIDED_SQL = """
+            SELECT b.id
+            FROM bills b
+            WHERE b.active = false
+            AND NOT EXISTS (SELECT 1 FROM outbox_events o WHERE o.aggregate_id = b.id)
+            ORDER BY b.date_time, b.id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String LOCK_AGED_SQL = """
+            SELECT b.id
+            FROM bills b
+            WHERE b.active = true
+            AND b.date_time < ?
+            AND NOT EXISTS (SELECT 1 FROM outbox_events o WHERE o.aggregate_id = b.id)
+            ORDER BY b.date_time, b.id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String COPY_BILL_SQL = """
+            INSERT INTO bills_archive (id, date_time, active, total, user_id, archived_at)
+            SELECT id, date_time, active, total, user_id, ?
+            FROM bills
+            WHERE id = ?
+            """;
+
+    private static final String COPY_DETAILS_SQL = """
+            INSERT INTO bill_user_archive (bill_id, product_id, quantity, unit_price, subtotal)
+            SELECT bill_id, product_id, quantity, unit_price, subtotal
+            FROM bill_user
+            WHERE bill_id = ?
+            """;
+
+    private static final String DELETE_DETAILS_SQL = "DELETE FROM bill_user WHERE bill_id = ?";
+
+    private static final String DELETE_BILL_SQL = "DELETE FROM bills WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Bloquea hasta limit facturas anuladas, las más antiguas primero. */
+    public List<Long> lockVoided(int limit) {
+        return jdbcTemplate.queryForList(LOCK_VOIDED_SQL, Long.class, limit);
+    }
+
+    /** Bloquea hasta limit facturas activas anteriores a cutoff, las más antiguas primero. */
+    public List<Long> lockAged(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList(LOCK_AGED_SQL, Long.class, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Copia las facturas (ya bloqueadas) y sus detalles al archivo y las borra de las tablas calientes.
+     * Cada paso es un lote JDBC con una sentencia por factura, por clave primaria.
+     */
+    public void archive(List<Long> billIds, Instant now) {
+        Timestamp archivedAt = Timestamp.from(now);
+        List<Object[]> ids = billIds.stream().map(id -> new Object[]{id}).toList();
+
+        // 1. Copiar al archivo
+        jdbcTemplate.batchUpdate(COPY_BILL_SQL, billIds.stream().map(id -> new Object[]{archivedAt, id}).toList());
+        jdbcTemplate.batchUpdate(COPY_DETAILS_SQL, ids);
+
+        // 2. Borrar de las tablas calientes (detalles primero por la clave foránea)
+        jdbcTemplate.batchUpdate(DELETE_DETAILS_SQL, ids);
+        jdbcTemplate.batchUpdate(DELETE_BILL_SQL, ids);
+    }
+}
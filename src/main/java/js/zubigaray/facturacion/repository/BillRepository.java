@@ -1,6 +1,7 @@
 package js.zubigaray.facturacion.repository;
 
 import js.zubigaray.facturacion.entity.BillEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -21,12 +23,62 @@ public interface BillRepository extends JpaRepository<BillEntity, Long> {
     """)
     List<BillEntity> findAllActive();
 
+    /**
+     * Página de facturas activas ordenadas por fecha descendente (keyset sobre date_time, id).
+     * El cursor es la fecha e ID de la última factura de la página anterior (null para la primera página).
+     * Usa el índice idx_bills_active_date_time_id.
+     */
+    @Query("""
+        SELECT b
+        FROM BillEntity b
+        JOIN FETCH b.user u
+        WHERE b.active = true
+        AND (:from IS NULL OR b.dateTime >= :from)
+        AND (:to IS NULL OR b.dateTime < :to)
+        AND (:cursorDateTime IS NULL
+             OR b.dateTime < :cursorDateTime
+             OR (b.dateTime = :cursorDateTime AND b.id < :cursorId))
+        ORDER BY b.dateTime DESC, b.id DESC
+    """)
+    List<BillEntity> findActivePage(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("cursorDateTime") LocalDateTime cursorDateTime,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable
+    );
+
+    /**
+     * Página de facturas activas de un usuario ordenadas por ID descendente (keyset sobre id).
+     * Usa el índice idx_bills_user_active_id.
+     */
+    @Query("""
+        SELECT b
+        FROM BillEntity b
+        JOIN FETCH b.user u
+        WHERE u.id = :userId
+        AND b.active = true
+        AND (:from IS NULL OR b.dateTime >= :from)
+        AND (:to IS NULL OR b.dateTime < :to)
+        AND (:cursorId IS NULL OR b.id < :cursorId)
+        ORDER BY b.id DESC
+    """)
+    List<BillEntity> findActivePageByUser(
+            @Param("userId") Long userId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable
+    );
+
+    /** @return 1 si la factura estaba activa y quedó anulada, 0 si no existe o ya estaba anulada. */
     @Modifying
     @Transactional
     @Query("""
         UPDATE BillEntity b
         SET b.active = false
         WHERE b.id = :billId
+        AND b.active = true
     """)
-    void softDelete(@Param("billId") Long billId);
+    int softDelete(@Param("billId") Long billId);
 }
\ No newline at end of file
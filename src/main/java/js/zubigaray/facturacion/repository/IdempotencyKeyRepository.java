@@ -0,0 +1,67 @@
+package js.zubigaray.facturacion.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Acceso JDBC a idempotency_keys. Participa de la transacción JPA en curso (misma conexión).
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    // Si otra transacción insertó la misma clave, este INSERT espera su commit y falla por clave duplicada
+    private static final String INSERT_SQL = """
+            INSERT INTO idempotency_keys (idempotency_key, request_hash, bill_id, created_at, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT request_hash, bill_id
+            FROM idempotency_keys
+            WHERE idempotency_key = ?
+            AND expires_at > ?
+            """;
+
+    // Borrado por lotes acotados para no mantener locks ni generar un undo log enorme
+    private static final String DELETE_EXPIRED_SQL = """
+            DELETE FROM idempotency_keys
+            WHERE expires_at < ?
+            LIMIT ?
+            """;
+
+    private static final String DELETE_EXPIRED_KEY_SQL = """
+            DELETE FROM idempotency_keys
+            WHERE idempotency_key = ?
+            AND expires_at <= ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(String idempotencyKey, String requestHash, Long billId, Instant createdAt, Instant expiresAt) {
+        jdbcTemplate.update(INSERT_SQL, idempotencyKey, requestHash, billId,
+                Timestamp.from(createdAt), Timestamp.from(expiresAt));
+    }
+
+    public Optional<StoredKey> find(String idempotencyKey, Instant now) {
+        return jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new StoredKey(rs.getString("request_hash"), rs.getLong("bill_id")),
+                idempotencyKey, Timestamp.from(now)).stream().findFirst();
+    }
+
+    /** Borra hasta "limit" claves vencidas y devuelve cuántas borró. */
+    public int deleteExpired(Instant now, int limit) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(now), limit);
+    }
+
+    public void deleteExpired(String idempotencyKey, Instant now) {
+        jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL, idempotencyKey, Timestamp.from(now));
+    }
+
+    public record StoredKey(String requestHash, Long billId) {
+    }
+}
@@ -0,0 +1,57 @@
+package js.zubigaray.facturacion.repository;
+
+import js.zubigaray.facturacion.util.SigningKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Acceso JDBC a jwt_signing_keys. */
+@Repository
+@RequiredArgsConstructor
+public class JwtSigningKeyRepository {
+
+    private static final String FIND_ALL_SQL = """
+            SELECT kid, algorithm, key_algorithm, signing_key, verification_key, created_at
+            FROM jwt_signing_keys
+            ORDER BY created_at DESC
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO jwt_signing_keys (kid, algorithm, key_algorithm, signing_key, verification_key, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM jwt_signing_keys WHERE kid = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Todas las claves, de la más nueva a la más antigua. */
+    public List<SigningKey> findAll() {
+        return new ArrayList<>(jdbcTemplate.query(FIND_ALL_SQL, (rs, rowNum) -> SigningKey.fromEncoded(
+                rs.getString("kid"),
+                rs.getString("algorithm"),
+                rs.getString("key_algorithm"),
+                rs.getBytes("signing_key"),
+                rs.getBytes("verification_key"),
+                rs.getTimestamp("created_at").toInstant()
+        )));
+    }
+
+    public void insert(SigningKey key) {
+        jdbcTemplate.update(INSERT_SQL,
+                key.kid(),
+                key.algorithm(),
+                key.verificationKey().getAlgorithm(),
+                key.signingKey().getEncoded(),
+                key.verificationKey().getEncoded(),
+                Timestamp.from(key.createdAt()));
+    }
+
+    public void delete(String kid) {
+        jdbcTemplate.update(DELETE_SQL, kid);
+    }
+}
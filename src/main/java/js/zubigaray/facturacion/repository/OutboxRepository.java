@@ -0,0 +1,130 @@
+package js.zubigaray.facturacion.repository;
+
+import js.zubigaray.facturacion.dto.OutboxEventRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Acceso JDBC a outbox_events. Participa de la transacción JPA en curso (misma conexión).
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events (event_type, aggregate_id, payload, created_at, available_at, attempts)
+            VALUES (?, ?, ?, ?, ?, 0)
+            """;
+
+    // Candidatos a entregar, en orden de creación; se bloquean de a uno al procesarlos
+    private static final String FIND_AVAILABLE_IDS_SQL = """
+            SELECT id
+            FROM outbox_events
+            WHERE available_at <= ?
+            AND attempts < ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    // Otra instancia que ya está procesando el evento lo tiene bloqueado: se saltea en lugar de esperar
+    private static final String LOCK_SQL = """
+            SELECT id, event_type, aggregate_id, payload, created_at, attempts
+            FROM outbox_events
+            WHERE id = ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    // Sin SKIP LOCKED: espera a que terminen las entregas en curso de esos eventos. En MySQL (REPEATABLE READ)
+    // el recorrido bloquea también los huecos del índice, así que los INSERT de eventos nuevos esperan
+    // hasta el fin de la transacción
+    private static final String LOCK_BY_TYPE_SQL = """
+            SELECT id
+            FROM outbox_events
+            WHERE event_type IN (%s)
+            FOR UPDATE
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ?";
+
+    private static final String MARK_FAILED_SQL = """
+            UPDATE outbox_events
+            SET attempts = attempts + 1, available_at = ?, last_error = ?
+            WHERE id = ?
+            """;
+
+    private static final String STATS_SQL = """
+            SELECT
+                SUM(CASE WHEN attempts < ? THEN 1 ELSE 0 END) AS pending,
+                MIN(CASE WHEN attempts < ? THEN created_at END) AS oldest,
+                SUM(CASE WHEN attempts >= ? THEN 1 ELSE 0 END) AS dead
+            FROM outbox_events
+            """;
+
+    private static final RowMapper<OutboxEventRecord> ROW_MAPPER = (rs, rowNum) -> new OutboxEventRecord(
+            rs.getLong("id"),
+            rs.getString("event_type"),
+            rs.getObject("aggregate_id", Long.class),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getInt("attempts")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Inserta los eventos [tipo, aggregateId, payload] en un solo lote JDBC. */
+    public void insertAll(List<Object[]> events, Instant now) {
+        Timestamp timestamp = Timestamp.from(now);
+        jdbcTemplate.batchUpdate(INSERT_SQL, events.stream()
+                .map(event -> new Object[]{event[0], event[1], event[2], timestamp, timestamp})
+                .toList());
+    }
+
+    public List<Long> findAvailableIds(Instant now, int maxAttempts, int limit) {
+        return jdbcTemplate.queryForList(FIND_AVAILABLE_IDS_SQL, Long.class, Timestamp.from(now), maxAttempts, limit);
+    }
+
+    /** Bloquea el evento hasta el fin de la transacción; vacío si ya se entregó o lo tiene otra instancia. */
+    public Optional<OutboxEventRecord> lock(Long id) {
+        return jdbcTemplate.query(LOCK_SQL, ROW_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Bloquea hasta el fin de la transacción todos los eventos de los tipos indicados (pendientes o agotados).
+     * Los despachadores de todas las instancias los saltean mientras tanto (SKIP LOCKED).
+     */
+    public List<Long> lockAllByType(List<String> eventTypes) {
+        String placeholders = String.join(", ", Collections.nCopies(eventTypes.size(), "?"));
+        return jdbcTemplate.queryForList(LOCK_BY_TYPE_SQL.formatted(placeholders), Long.class, eventTypes.toArray());
+    }
+
+    public void delete(Long id) {
+        jdbcTemplate.update(DELETE_SQL, id);
+    }
+
+    public void deleteAll(List<Long> ids) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    public void markFailed(Long id, Instant retryAt, String error) {
+        jdbcTemplate.update(MARK_FAILED_SQL, Timestamp.from(retryAt), error, id);
+    }
+
+    /** Pendientes, creación del más antiguo pendiente (null si no hay) y agotados, en una sola consulta. */
+    public Stats stats(int maxAttempts) {
+        return jdbcTemplate.queryForObject(STATS_SQL, (rs, rowNum) -> {
+            Timestamp oldest = rs.getTimestamp("oldest");
+            return new Stats(rs.getLong("pending"), oldest == null ? null : oldest.toInstant(), rs.getLong("dead"));
+        }, maxAttempts, maxAttempts, maxAttempts);
+    }
+
+    public record Stats(long pending, Instant oldestPending, long dead) {
+    }
+}
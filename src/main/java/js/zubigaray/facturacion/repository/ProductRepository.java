@@ -1,17 +1,18 @@
 package js.zubigaray.facturacion.repository;
 
+import js.zubigaray.facturacion.dto.ProductResponse;
 import js.zubigaray.facturacion.entity.ProductEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
-
-    List<ProductEntity> findByNameContainingIgnoreCase(String name);
+public interface ProductRepository extends JpaRepository<ProductEntity, Long>, ProductStockRepository {
 
     @Query("""
         SELECT p
@@ -28,4 +29,32 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
 
     @Query("SELECT p FROM ProductEntity p WHERE p.active = true")
     List<ProductEntity> findAllActive();
+
+    /**
+     * Página keyset del catálogo: productos activos con ID mayor al cursor, con filtro opcional por rango de precio.
+     * La búsqueda por nombre usa ProductSearchService (un LIKE '%nombre%' no puede usar índices).
+     * Proyecta directamente al DTO, sin cargar entidades en el contexto de persistencia.
+     */
+    @Query("""
+        SELECT new js.zubigaray.facturacion.dto.ProductResponse(p.id, p.name, p.price)
+        FROM ProductEntity p
+        WHERE p.active = true
+        AND (:afterId IS NULL OR p.id > :afterId)
+        AND (:minPrice IS NULL OR p.price >= :minPrice)
+        AND (:maxPrice IS NULL OR p.price <= :maxPrice)
+        ORDER BY p.id
+    """)
+    List<ProductResponse> findCatalogPage(
+            @Param("afterId") Long afterId,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT new js.zubigaray.facturacion.dto.ProductResponse(p.id, p.name, p.price)
+        FROM ProductEntity p
+        WHERE p.id = :id AND p.active = true
+    """)
+    Optional<ProductResponse> findCatalogProduct(@Param("id") Long id);
 }
@@ -0,0 +1,29 @@
+package js.zubigaray.facturacion.repository;
+
+import java.util.SortedMap;
+
+/**
+ * Operaciones de stock que se ejecutan directamente con JDBC, sin pasar por el dirty checking de Hibernate.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Descuenta el stock de varios productos en un único lote de UPDATEs condicionados (stock >= cantidad).
+     * Las filas se actualizan en el orden de las claves (ID ascendente) para evitar deadlocks entre facturas.
+     * @param quantities Cantidad a descontar por ID de producto.
+     * @return Filas afectadas por cada producto, en el mismo orden que el mapa (0 = sin stock o inactivo).
+     */
+    int[] decrementStock(SortedMap<Long, Long> quantities);
+
+    /**
+     * Devuelve stock a varios productos en un único lote (compensación de una reserva parcial).
+     * @param quantities Cantidad a devolver por ID de producto.
+     */
+    void incrementStock(SortedMap<Long, Long> quantities);
+
+    /**
+     * Lee el stock disponible de un producto sin cargar la entidad.
+     * @return El stock actual, o 0 si el producto no existe o está inactivo.
+     */
+    long findAvailableStock(Long productId);
+}
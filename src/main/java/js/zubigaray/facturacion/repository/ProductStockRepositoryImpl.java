@@ -0,0 +1,55 @@
+package js.zubigaray.facturacion.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+@RequiredArgsConstructor
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private static final String DECREMENT_STOCK_SQL = """
+            UPDATE products
+            SET stock = stock - ?
+            WHERE id = ? AND active = true AND stock >= ?
+            """;
+
+    private static final String INCREMENT_STOCK_SQL = """
+            UPDATE products
+            SET stock = stock + ?
+            WHERE id = ?
+            """;
+
+    private static final String AVAILABLE_STOCK_SQL = """
+            SELECT stock
+            FROM products
+            WHERE id = ? AND active = true
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] decrementStock(SortedMap<Long, Long> quantities) {
+        List<Object[]> batchArgs = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> batchArgs.add(new Object[]{quantity, productId, quantity}));
+
+        // JdbcTemplate participa de la transacción JPA en curso (misma conexión)
+        return jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs);
+    }
+
+    @Override
+    public void incrementStock(SortedMap<Long, Long> quantities) {
+        List<Object[]> batchArgs = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> batchArgs.add(new Object[]{quantity, productId}));
+
+        jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, batchArgs);
+    }
+
+    @Override
+    public long findAvailableStock(Long productId) {
+        List<Long> stock = jdbcTemplate.queryForList(AVAILABLE_STOCK_SQL, Long.class, productId);
+        return stock.isEmpty() ? 0L : stock.get(0);
+    }
+}
@@ -0,0 +1,110 @@
+package js.zubigaray.facturacion.repository;
+
+import js.zubigaray.facturacion.dto.RefreshTokenRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Acceso JDBC a refresh_tokens y session_revocations. Todas las operaciones por token usan la clave primaria (jti).
+ * Participa de la transacción JPA en curso (misma conexión).
+ */
+@Repository
+@RequiredArgsConstructor
+public class RefreshTokenRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO refresh_tokens (jti, user_id, family_id, issued_at, expires_at, used)
+            VALUES (?, ?, ?, ?, ?, false)
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT jti, user_id, family_id, issued_at, expires_at, used
+            FROM refresh_tokens
+            WHERE jti = ?
+            """;
+
+    // Rotación atómica: solo un refresh concurrente puede marcar el token como usado, y solo si el usuario no
+    // revocó todas sus sesiones después de emitirlo (la revocación pudo registrarla cualquier instancia)
+    private static final String MARK_USED_SQL = """
+            UPDATE refresh_tokens
+            SET used = true
+            WHERE jti = ? AND used = false
+            AND NOT EXISTS (
+                SELECT 1
+                FROM session_revocations r
+                WHERE r.user_id = refresh_tokens.user_id
+                AND r.revoked_before > refresh_tokens.issued_at
+            )
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM refresh_tokens WHERE jti = ?";
+
+    private static final String DELETE_FAMILY_SQL = "DELETE FROM refresh_tokens WHERE family_id = ?";
+
+    // Borrado por lotes acotados para no mantener locks ni generar un undo log enorme
+    private static final String DELETE_EXPIRED_SQL = """
+            DELETE FROM refresh_tokens
+            WHERE expires_at < ?
+            LIMIT ?
+            """;
+
+    private static final String UPSERT_REVOCATION_SQL = """
+            INSERT INTO session_revocations (user_id, revoked_before)
+            VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE revoked_before = VALUES(revoked_before)
+            """;
+
+    private static final String DELETE_OLD_REVOCATIONS_SQL = "DELETE FROM session_revocations WHERE revoked_before < ?";
+
+    private static final RowMapper<RefreshTokenRecord> ROW_MAPPER = (rs, rowNum) -> new RefreshTokenRecord(
+            rs.getString("jti"),
+            rs.getLong("user_id"),
+            rs.getString("family_id"),
+            rs.getTimestamp("issued_at").toInstant(),
+            rs.getTimestamp("expires_at").toInstant(),
+            rs.getBoolean("used")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(RefreshTokenRecord token) {
+        jdbcTemplate.update(INSERT_SQL, token.jti(), token.userId(), token.familyId(),
+                Timestamp.from(token.issuedAt()), Timestamp.from(token.expiresAt()));
+    }
+
+    public Optional<RefreshTokenRecord> findByJti(String jti) {
+        return jdbcTemplate.query(FIND_SQL, ROW_MAPPER, jti).stream().findFirst();
+    }
+
+    /** @return true si el token existía sin usar, no estaba revocado por session_revocations y quedó marcado como usado. */
+    public boolean markUsed(String jti) {
+        return jdbcTemplate.update(MARK_USED_SQL, jti) == 1;
+    }
+
+    public void delete(String jti) {
+        jdbcTemplate.update(DELETE_SQL, jti);
+    }
+
+    public int deleteFamily(String familyId) {
+        return jdbcTemplate.update(DELETE_FAMILY_SQL, familyId);
+    }
+
+    /** Borra hasta "limit" tokens vencidos y devuelve cuántos borró. */
+    public int deleteExpired(Instant now, int limit) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(now), limit);
+    }
+
+    public void saveRevocation(Long userId, Instant revokedBefore) {
+        jdbcTemplate.update(UPSERT_REVOCATION_SQL, userId, Timestamp.from(revokedBefore));
+    }
+
+    public int deleteRevocationsBefore(Instant threshold) {
+        return jdbcTemplate.update(DELETE_OLD_REVOCATIONS_SQL, Timestamp.from(threshold));
+    }
+}
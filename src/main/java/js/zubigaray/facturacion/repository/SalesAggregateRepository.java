@@ -0,0 +1,181 @@
+package js.zubigaray.facturacion.repository;
+
+import js.zubigaray.facturacion.dto.BillSaleLine;
+import js.zubigaray.facturacion.dto.DailyProductSales;
+import js.zubigaray.facturacion.dto.DailyUserSales;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acceso JDBC a los agregados diarios daily_product_sales y daily_user_sales.
+ * Los cambios se aplican como incrementos (positivos al facturar, negativos al anular) con un upsert por fila,
+ * sin leer el valor anterior. Participa de la transacción JPA en curso (misma conexión).
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesAggregateRepository {
+
+    private static final String UPSERT_PRODUCT_SQL = """
+            INSERT INTO daily_product_sales (sales_date, product_id, quantity, revenue, bill_count)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                quantity = quantity + VALUES(quantity),
+                revenue = revenue + VALUES(revenue),
+                bill_count = bill_count + VALUES(bill_count)
+            """;
+
+    private static final String UPSERT_USER_SQL = """
+            INSERT INTO daily_user_sales (sales_date, user_id, bill_count, revenue)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                bill_count = bill_count + VALUES(bill_count),
+                revenue = revenue + VALUES(revenue)
+            """;
+
+    private static final String FIND_BILL_LINES_SQL = """
+            SELECT b.date_time, b.user_id, b.total, d.product_id, d.quantity, d.subtotal
+            FROM bills b
+            LEFT JOIN bill_user d ON d.bill_id = b.id
+            WHERE b.id = ?
+            """;
+
+    // Las filas con bill_count = 0 quedaron en cero por anulaciones
+    private static final String FIND_PRODUCT_SALES_SQL = """
+            SELECT sales_date, product_id, quantity, revenue, bill_count
+            FROM daily_product_sales
+            WHERE sales_date BETWEEN ? AND ?
+            AND bill_count > 0
+            ORDER BY sales_date, product_id
+            """;
+
+    private static final String FIND_PRODUCT_SALES_BY_PRODUCT_SQL = """
+            SELECT sales_date, product_id, quantity, revenue, bill_count
+            FROM daily_product_sales
+            WHERE product_id = ?
+            AND sales_date BETWEEN ? AND ?
+            AND bill_count > 0
+            ORDER BY sales_date
+            """;
+
+    private static final String FIND_USER_SALES_SQL = """
+            SELECT sales_date, user_id, bill_count, revenue
+            FROM daily_user_sales
+            WHERE sales_date BETWEEN ? AND ?
+            AND bill_count > 0
+            ORDER BY sales_date, user_id
+            """;
+
+    private static final String FIND_USER_SALES_BY_USER_SQL = """
+            SELECT sales_date, user_id, bill_count, revenue
+            FROM daily_user_sales
+            WHERE user_id = ?
+            AND sales_date BETWEEN ? AND ?
+            AND bill_count > 0
+            ORDER BY sales_date
+            """;
+
+    private static final String DELETE_PRODUCT_SALES_SQL = "DELETE FROM daily_product_sales";
+
+    private static final String DELETE_USER_SALES_SQL = "DELETE FROM daily_user_sales";
+
+    private static final String REBUILD_PRODUCT_SALES_SQL = """
+            INSERT INTO daily_product_sales (sales_date, product_id, quantity, revenue, bill_count)
+            SELECT l.sales_date, l.product_id, SUM(l.quantity), SUM(l.subtotal), COUNT(*)
+            FROM (
+                SELECT CAST(b.date_time AS DATE) AS sales_date, d.product_id, d.quantity, d.subtotal
+                FROM bill_user d
+                JOIN bills b ON b.id = d.bill_id
+                WHERE b.active = true
+                UNION ALL
+                SELECT CAST(b.date_time AS DATE) AS sales_date, d.product_id, d.quantity, d.subtotal
+                FROM bill_user_archive d
+                JOIN bills_archive b ON b.id = d.bill_id
+                WHERE b.active = true
+            ) l
+            GROUP BY l.sales_date, l.product_id
+            """;
+
+    private static final String REBUILD_USER_SALES_SQL = """
+            INSERT INTO daily_user_sales (sales_date, user_id, bill_count, revenue)
+            SELECT l.sales_date, l.user_id, COUNT(*), SUM(l.total)
+            FROM (
+                SELECT CAST(b.date_time AS DATE) AS sales_date, b.user_id, b.total
+                FROM bills b
+                WHERE b.active = true
+                UNION ALL
+                SELECT CAST(b.date_time AS DATE) AS sales_date, b.user_id, b.total
+                FROM bills_archive b
+                WHERE b.active = true
+            ) l
+            GROUP BY l.sales_date, l.user_id
+            """;
+
+    private static final RowMapper<DailyProductSales> PRODUCT_ROW_MAPPER = (rs, rowNum) -> new DailyProductSales(
+            rs.getDate("sales_date").toLocalDate(),
+            rs.getLong("product_id"),
+            rs.getLong("quantity"),
+            rs.getDouble("revenue"),
+            rs.getLong("bill_count")
+    );
+
+    private static final RowMapper<DailyUserSales> USER_ROW_MAPPER = (rs, rowNum) -> new DailyUserSales(
+            rs.getDate("sales_date").toLocalDate(),
+            rs.getLong("user_id"),
+            rs.getLong("bill_count"),
+            rs.getDouble("revenue")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Aplica incrementos [fecha, producto, cantidad, ingreso, facturas] en un solo lote JDBC. */
+    public void applyProductDeltas(List<Object[]> deltas) {
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT_SQL, deltas);
+    }
+
+    /** Aplica incrementos [fecha, usuario, facturas, ingreso] en un solo lote JDBC. */
+    public void applyUserDeltas(List<Object[]> deltas) {
+        jdbcTemplate.batchUpdate(UPSERT_USER_SQL, deltas);
+    }
+
+    public List<BillSaleLine> findBillLines(Long billId) {
+        return jdbcTemplate.query(FIND_BILL_LINES_SQL, (rs, rowNum) -> new BillSaleLine(
+                rs.getObject("date_time", LocalDateTime.class),
+                rs.getLong("user_id"),
+                rs.getDouble("total"),
+                rs.getObject("product_id", Long.class),
+                rs.getObject("quantity", Long.class),
+                rs.getObject("subtotal", Double.class)
+        ), billId);
+    }
+
+    public List<DailyProductSales> findProductSales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(FIND_PRODUCT_SALES_SQL, PRODUCT_ROW_MAPPER, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<DailyProductSales> findProductSales(Long productId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(FIND_PRODUCT_SALES_BY_PRODUCT_SQL, PRODUCT_ROW_MAPPER, productId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<DailyUserSales> findUserSales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(FIND_USER_SALES_SQL, USER_ROW_MAPPER, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<DailyUserSales> findUserSales(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(FIND_USER_SALES_BY_USER_SQL, USER_ROW_MAPPER, userId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /** Recalcula ambos agregados desde las facturas activas, incluidas las archivadas (recorre todo el historial). */
+    public void rebuild() {
+        jdbcTemplate.update(DELETE_PRODUCT_SALES_SQL);
+        jdbcTemplate.update(DELETE_USER_SALES_SQL);
+        jdbcTemplate.update(REBUILD_PRODUCT_SALES_SQL);
+        jdbcTemplate.update(REBUILD_USER_SALES_SQL);
+    }
+}
@@ -0,0 +1,85 @@
+package js.zubigaray.facturacion.repository;
+
+import jakarta.persistence.EntityManager;
+import js.zubigaray.facturacion.dto.BillExportRow;
+import js.zubigaray.facturacion.dto.ProductResponse;
+import js.zubigaray.facturacion.dto.ProductSalesRow;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/**
+ * Consultas que recorren tablas completas como un cursor de la base de datos (exportaciones, reportes e índice de
+ * búsqueda). Devuelven proyecciones (no entidades), de modo que el contexto de persistencia no crece durante el
+ * recorrido. Deben consumirse dentro de una transacción, sin ejecutar otras consultas mientras tanto, y cerrarse
+ * al terminar.
+ * <p>
+ * El fetch size se aplica solo a estas sentencias: con MySQL, Integer.MIN_VALUE hace que Connector/J entregue las
+ * filas una a una en lugar de cargar todo el ResultSet, sin activar useCursorFetch (que convierte todas las
+ * sentencias de la aplicación en server-side prepared statements).
+ */
+@Repository
+public class StreamingQueryRepository {
+
+    private static final String ACTIVE_EXPORT_ROWS_JPQL = """
+            SELECT new js.zubigaray.facturacion.dto.BillExportRow(
+                b.id, b.dateTime, u.id, u.username, b.total,
+                d.id.productId, d.quantity, d.unitPrice, d.subtotal
+            )
+            FROM BillUser d
+            JOIN d.bill b
+            JOIN b.user u
+            WHERE b.active = true
+            ORDER BY b.id
+            """;
+
+    private static final String PRODUCT_SALES_JPQL = """
+            SELECT new js.zubigaray.facturacion.dto.ProductSalesRow(p.id, p.name, SUM(d.quantity), SUM(d.subtotal))
+            FROM BillUser d
+            JOIN d.product p
+            JOIN d.bill b
+            WHERE b.active = true
+            GROUP BY p.id, p.name
+            ORDER BY p.id
+            """;
+
+    private static final String ACTIVE_PRODUCTS_JPQL = """
+            SELECT new js.zubigaray.facturacion.dto.ProductResponse(p.id, p.name, p.price)
+            FROM ProductEntity p
+            WHERE p.active = true
+            ORDER BY p.id
+            """;
+
+    private final EntityManager entityManager;
+    private final int fetchSize;
+
+    public StreamingQueryRepository(EntityManager entityManager,
+                                    @Value("${persistence.streaming-fetch-size}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+    }
+
+    /** Recorre las líneas de todas las facturas activas ordenadas por factura. */
+    public Stream<BillExportRow> streamActiveExportRows() {
+        return stream(ACTIVE_EXPORT_ROWS_JPQL, BillExportRow.class);
+    }
+
+    /** Recorre las ventas acumuladas por producto de las facturas activas, ordenadas por producto. */
+    public Stream<ProductSalesRow> streamProductSales() {
+        return stream(PRODUCT_SALES_JPQL, ProductSalesRow.class);
+    }
+
+    /** Recorre los productos activos para construir el índice de búsqueda. */
+    public Stream<ProductResponse> streamActiveForSearch() {
+        return stream(ACTIVE_PRODUCTS_JPQL, ProductResponse.class);
+    }
+
+    private <T> Stream<T> stream(String jpql, Class<T> type) {
+        return entityManager.createQuery(jpql, type)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -1,6 +1,7 @@
 package js.zubigaray.facturacion.repository;
 
 import js.zubigaray.facturacion.entity.UserEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,6 +10,8 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
+    // Carga los roles en la misma consulta (JOIN) en lugar de un SELECT adicional
+    @EntityGraph(attributePaths = "roles")
     Optional<UserEntity> findByUsername(String username);
     Optional<UserEntity> findByEmail(String email);
     boolean existsByUsername(String username);
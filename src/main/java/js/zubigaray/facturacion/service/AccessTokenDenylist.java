@@ -0,0 +1,181 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import js.zubigaray.facturacion.repository.AccessTokenRevocationRepository;
+import js.zubigaray.facturacion.util.BloomFilter;
+import js.zubigaray.facturacion.util.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Denylist de access tokens: permite rechazar de inmediato los tokens ya emitidos de un usuario deshabilitado
+ * o cuyas sesiones se revocaron, sin consultar la base de datos en cada petición.
+ * <p>
+ * JwtAuthenticationFilter consulta primero un Bloom filter en memoria con los usernames revocados: si responde
+ * "no está" (el caso normal) el token se acepta sin más. Solo ante un acierto se confirma en
+ * access_token_revocations y se compara la emisión del token con el momento de la revocación.
+ * <p>
+ * El filtro se reconstruye periódicamente desde la tabla (así se descartan las revocaciones vencidas y se
+ * redimensiona). Las revocaciones de esta instancia se guardan además en un conjunto pendiente que se vuelca en
+ * el filtro nuevo; el alta en el conjunto y en el filtro, y el intercambio del conjunto y del filtro, se hacen
+ * bajo el mismo lock, así ninguna revocación queda fuera del filtro vigente.
+ * <p>
+ * Con varias instancias, cada una incorpora las revocaciones de las demás consultando la tabla cada
+ * security.token-denylist.sync-interval: ese intervalo es la demora máxima (más la duración de la transacción
+ * que revoca) hasta que un token revocado en una instancia se rechaza en todas.
+ * Métricas: security.token_denylist.filter.bytes, .entries y security.token_denylist.lookups{result}.
+ */
+@Component
+@Slf4j
+public class AccessTokenDenylist {
+
+    private final AccessTokenRevocationRepository revocationRepository;
+    private final Duration accessTokenLifetime;
+    private final long minimumCapacity;
+    private final double falsePositiveRate;
+
+    /** Margen de la sincronización: una revocación se confirma después del revoked_at con el que se guardó. */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final AtomicReference<BloomFilter> filter = new AtomicReference<>();
+    // Protege el conjunto pendiente junto con el filtro vigente (altas e intercambios); las lecturas no lo toman
+    private final Object swapLock = new Object();
+    private Set<String> pending = new HashSet<>();
+    private volatile long entries;
+    private volatile Instant lastSync = Instant.now();
+
+    private final Counter filterMisses;
+    private final Counter confirmedHits;
+    private final Counter falsePositives;
+
+    public AccessTokenDenylist(
+            AccessTokenRevocationRepository revocationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.expiration}") long accessTokenExpirationMillis,
+            @Value("${security.token-denylist.minimum-capacity:10000}") long minimumCapacity,
+            @Value("${security.token-denylist.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.revocationRepository = revocationRepository;
+        this.accessTokenLifetime = Duration.ofMillis(accessTokenExpirationMillis);
+        this.minimumCapacity = minimumCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter.set(BloomFilter.create(minimumCapacity, falsePositiveRate));
+
+        Gauge.builder("security.token_denylist.filter.bytes", filter, ref -> ref.get().sizeInBytes())
+                .description("Memoria ocupada por el Bloom filter de la denylist")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("security.token_denylist.filter.entries", this, denylist -> denylist.entries)
+                .description("Revocaciones vigentes cargadas en el Bloom filter")
+                .register(meterRegistry);
+        this.filterMisses = lookups(meterRegistry, "filter_miss");
+        this.confirmedHits = lookups(meterRegistry, "revoked");
+        this.falsePositives = lookups(meterRegistry, "false_positive");
+    }
+
+    /**
+     * Revoca los access tokens del usuario emitidos hasta ahora. Los tokens nuevos (login posterior) siguen siendo válidos.
+     * Debe llamarse dentro de la transacción que deshabilita o revoca al usuario.
+     */
+    public void revokeUser(String username) {
+        Instant now = Instant.now();
+        revocationRepository.save(username, now, now.plus(accessTokenLifetime));
+
+        // Conjunto pendiente y filtro vigente bajo el mismo lock que el intercambio: si la reconstrucción ya
+        // tomó el conjunto, esta revocación va al conjunto nuevo y se vuelca en el filtro nuevo al intercambiar
+        synchronized (swapLock) {
+            pending.add(username);
+            filter.get().put(username);
+        }
+    }
+
+    /** Indica si el token fue revocado. Solo consulta la base de datos si el Bloom filter da un acierto. */
+    public boolean isRevoked(VerifiedToken token) {
+        if (!filter.get().mightContain(token.subject())) {
+            filterMisses.increment();
+            return false;
+        }
+
+        Optional<Instant> revokedAt = revocationRepository.findRevokedAt(token.subject(), Instant.now());
+        // iat tiene precisión de segundos: un token emitido en el mismo segundo que la revocación también se rechaza
+        boolean revoked = revokedAt.isPresent()
+                && (token.issuedAt() == null || token.issuedAt().toInstant().isBefore(revokedAt.get()));
+        (revoked ? confirmedHits : falsePositives).increment();
+        return revoked;
+    }
+
+    /** Carga el filtro al terminar el arranque, cuando el esquema ya está inicializado. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Agrega al filtro las revocaciones recientes de la tabla, incluidas las de otras instancias.
+     * Como expires_at = revoked_at + vida del token, la consulta usa el índice de expires_at.
+     */
+    @Scheduled(fixedDelayString = "${security.token-denylist.sync-interval:5s}",
+            initialDelayString = "${security.token-denylist.sync-interval:5s}")
+    public void syncRecentRevocations() {
+        Instant now = Instant.now();
+        Instant revokedSince = lastSync.minus(SYNC_OVERLAP);
+        List<String> usernames = revocationRepository.findActiveUsernames(revokedSince.plus(accessTokenLifetime));
+        synchronized (swapLock) {
+            BloomFilter current = filter.get();
+            usernames.forEach(current::put);
+        }
+        lastSync = now;
+    }
+
+    /** Reconstruye el filtro desde las revocaciones vigentes y elimina las vencidas. */
+    @Scheduled(fixedDelayString = "${security.token-denylist.rebuild-interval:1m}",
+            initialDelayString = "${security.token-denylist.rebuild-interval:1m}")
+    public void rebuild() {
+        Instant now = Instant.now();
+        revocationRepository.deleteExpired(now);
+
+        // 1. Las revocaciones desde este punto quedan en un conjunto nuevo. Las del conjunto anterior se
+        // conservan en el filtro nuevo: su transacción puede no haber confirmado antes de la consulta
+        Set<String> previous;
+        synchronized (swapLock) {
+            previous = pending;
+            pending = new HashSet<>();
+        }
+
+        // 2. Construir el filtro nuevo con lo persistido, dimensionado con margen para crecer hasta el próximo rebuild
+        List<String> usernames = revocationRepository.findActiveUsernames(now);
+        BloomFilter rebuilt = BloomFilter.create(Math.max(minimumCapacity, usernames.size() * 2L), falsePositiveRate);
+        usernames.forEach(rebuilt::put);
+        previous.forEach(rebuilt::put);
+
+        // 3. Intercambiar y agregar lo que llegó durante la construcción, sin revocaciones en el medio
+        synchronized (swapLock) {
+            pending.forEach(rebuilt::put);
+            filter.set(rebuilt);
+        }
+        entries = usernames.size();
+
+        log.debug("Denylist reconstruida: {} revocaciones, {} bytes", usernames.size(), rebuilt.sizeInBytes());
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("security.token_denylist.lookups")
+                .description("Consultas a la denylist de access tokens")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
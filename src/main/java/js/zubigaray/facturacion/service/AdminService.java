@@ -23,6 +23,7 @@ public class AdminService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final UserFactory userFactory;
+    private final UserDetailsCache userDetailsCache;
 
     /**
      * Crea un nuevo usuario y le asigna roles específicos, lo que requiere permisos de ADMIN.
@@ -56,7 +57,10 @@ public class AdminService {
         user.setRoles(roles);
         UserEntity savedUser = userRepository.save(user);
 
-        // 5. Devolver DTO
+        // 5. Invalidar los UserDetails cacheados del usuario (sus roles acaban de definirse)
+        userDetailsCache.evict(savedUser.getUsername());
+
+        // 6. Devolver DTO
         return convertToDTO(savedUser);
     }
 
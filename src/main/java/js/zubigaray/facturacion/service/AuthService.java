@@ -1,25 +1,28 @@
 package js.zubigaray.facturacion.service;
 
+import js.zubigaray.facturacion.config.security.AuthenticatedUser;
 import js.zubigaray.facturacion.dto.AuthRequest;
 import js.zubigaray.facturacion.dto.AuthResponse;
+import js.zubigaray.facturacion.dto.RefreshTokenRecord;
 import js.zubigaray.facturacion.dto.RegisterRequest;
 import js.zubigaray.facturacion.entity.RoleEntity;
 import js.zubigaray.facturacion.entity.UserEntity;
+import js.zubigaray.facturacion.exception.custom_exceptions.RefreshTokenReuseException;
 import js.zubigaray.facturacion.repository.RoleRepository;
 import js.zubigaray.facturacion.repository.UserRepository;
 import js.zubigaray.facturacion.util.JwtUtil;
 import js.zubigaray.facturacion.util.UserFactory;
+import js.zubigaray.facturacion.util.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.HashSet;
@@ -35,7 +38,10 @@ public class AuthService {
     private final JwtUtil jwtUtil;
     private final UserFactory userFactory;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
+    private final RefreshTokenStore refreshTokenStore;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -54,13 +60,18 @@ public class AuthService {
 
         UserEntity savedUser = userRepository.save(user);
 
-        return getAuthResponse(savedUser);
+        return getAuthResponse(AuthenticatedUser.from(savedUser), null);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Autentica al usuario y genera sus tokens (el rate limiter lo aplica AuthController antes de llamar al servicio).
+     * BCrypt corre sin conexión del pool: la consulta del usuario devuelve la suya al terminar (open-in-view está
+     * desactivado) y la emisión de los tokens abre otra después del hash.
+     */
     public AuthResponse login(AuthRequest request) {
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getUsername(),
                             request.getPassword()
@@ -70,55 +81,78 @@ public class AuthService {
             throw new BadCredentialsException("Usuario o contraseña incorrectos.");
         }
 
-        UserEntity user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
-
-        return getAuthResponse(user);
+        // El principal ya trae ID, email, nombre y roles: no hace falta volver a consultar el usuario
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return transactionTemplate.execute(status -> getAuthResponse(user, null));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Rota el refresh token: el token presentado queda usado y se emite otro en la misma sesión.
+     * No se revierte ante RefreshTokenReuseException, para que la revocación de la sesión se confirme.
+     */
+    @Transactional(noRollbackFor = RefreshTokenReuseException.class)
     public AuthResponse refreshToken(String refreshToken) {
-        String username = jwtUtil.extractUsername(refreshToken);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // 1. Verifica firma y expiración con un único parseo
+        VerifiedToken token = jwtUtil.verify(refreshToken);
+        if (token.isExpired() || !token.isRefreshToken()) {
+            throw new BadCredentialsException("Token de refresh inválido o expirado.");
+        }
+
+        // 2. Consumir el token en el store (rechaza tokens revocados, vencidos o reutilizados)
+        RefreshTokenRecord consumed = refreshTokenStore.consume(token.id());
 
-        if (!jwtUtil.validateToken(refreshToken, userDetails)) {
+        // 3. Única consulta JPA del refresh: usuario y roles en un JOIN
+        String username = token.subject();
+        AuthenticatedUser user = userDetailsService.loadAuthenticatedUser(username);
+        if (!user.getId().equals(consumed.userId())) {
             throw new BadCredentialsException("Token de refresh inválido o expirado.");
         }
 
-        UserEntity user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+        return getAuthResponse(user, consumed.familyId());
+    }
 
-        return getAuthResponse(user);
+    /** Cierra la sesión del refresh token presentado. */
+    @Transactional
+    public void logout(String refreshToken) {
+        VerifiedToken token = jwtUtil.verify(refreshToken);
+        if (!token.isRefreshToken() || token.id() == null) {
+            throw new BadCredentialsException("Token de refresh inválido o expirado.");
+        }
+        refreshTokenStore.revoke(token.id());
+    }
+
+    /**
+     * Revoca todas las sesiones del usuario: sus refresh tokens y, vía la denylist, los access tokens ya emitidos.
+     */
+    @Transactional
+    public void revokeAllSessions(Long userId) {
+        UserEntity user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con ID: " + userId));
+        refreshTokenStore.revokeAll(userId);
+        accessTokenDenylist.revokeUser(user.getUsername());
     }
 
     // --- MÉTODO DE RESPUESTA SIMPLIFICADO ---
 
     /**
      * Método auxiliar para generar los tokens JWT y construir la respuesta DTO.
-     * Se simplifica para usar el generateToken(UserDetails) de JwtUtil.
+     * Usa solo los datos del principal; el refresh token se registra en el RefreshTokenStore.
+     * @param familyId Sesión a la que pertenece el refresh token (null para una sesión nueva).
      */
-    private AuthResponse getAuthResponse(UserEntity user) {
-        // 1. Cargar UserDetails (necesario para el generador de tokens)
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-
-        // 2. Extraer roles para el DTO de respuesta
-        List<String> roles = user.getRoles().stream()
-                .map(RoleEntity::getName)
-                .collect(Collectors.toList());
-
-        // 3. Generar tokens
+    private AuthResponse getAuthResponse(AuthenticatedUser user, String familyId) {
+        // 1. Generar tokens (AuthenticatedUser es el UserDetails que espera JwtUtil)
         // NOTA: No necesitamos construir 'claims' aquí. JwtUtil lo hace internamente.
-        String accessToken = jwtUtil.generateToken(userDetails); // 👈 SOLO pasamos UserDetails
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        String accessToken = jwtUtil.generateToken(user);
+        String refreshToken = jwtUtil.generateRefreshToken(user, refreshTokenStore.issue(user.getId(), familyId));
 
-        // 4. Construir y devolver la respuesta
+        // 2. Construir y devolver la respuesta
         return AuthResponse.builder()
                 .accessToken(accessToken)
                 .refreshToken(refreshToken)
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .fullName(user.getFullName())
-                .roles(roles)
+                .roles(user.getRoles())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import js.zubigaray.facturacion.repository.BillArchiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archivado periódico de facturas: mueve las anuladas y las más antiguas que retention (con sus detalles) a
+ * bills_archive y bill_user_archive, para que bills, bill_user y sus índices crezcan con la facturación reciente
+ * y no con todo el historial.
+ * <p>
+ * Cada bloque de chunk-size facturas se mueve en su propia transacción corta (bloquear, copiar, borrar): los
+ * bloqueos duran lo que un bloque y no todo el recorrido, y si el proceso se interrumpe lo ya movido queda
+ * confirmado. Las facturas se toman con FOR UPDATE SKIP LOCKED, así varias instancias pueden archivar a la vez
+ * sin repetir facturas y una factura que se está anulando queda para la próxima ejecución.
+ * <p>
+ * Solo se archivan facturas sin eventos pendientes en el outbox, de modo que los agregados diarios ya las reflejan;
+ * el recálculo de agregados también lee el archivo. Las facturas archivadas no se listan, exportan ni anulan.
+ * Métricas: bills.archived{reason}.
+ */
+@Service
+@Slf4j
+public class BillArchiveService {
+
+    private final BillArchiveRepository billArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    private final Counter archivedVoided;
+    private final Counter archivedAged;
+
+    public BillArchiveService(
+            BillArchiveRepository billArchiveRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${bills.archive.enabled:true}") boolean enabled,
+            @Value("${bills.archive.retention:365d}") Duration retention,
+            @Value("${bills.archive.chunk-size:500}") int chunkSize,
+            @Value("${bills.archive.max-chunks-per-run:20}") int maxChunksPerRun
+    ) {
+        this.billArchiveRepository = billArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+
+        this.archivedVoided = Counter.builder("bills.archived")
+                .description("Facturas movidas al archivo")
+                .tag("reason", "voided")
+                .register(meterRegistry);
+        this.archivedAged = Counter.builder("bills.archived")
+                .description("Facturas movidas al archivo")
+                .tag("reason", "aged")
+                .register(meterRegistry);
+    }
+
+    /** Archiva como máximo max-chunks-per-run bloques de anuladas y otros tantos de antiguas. */
+    @Scheduled(fixedDelayString = "${bills.archive.interval:1h}", initialDelayString = "${bills.archive.interval:1h}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        // 1. Facturas anuladas (sin importar la fecha)
+        int voided = archiveChunks(billArchiveRepository::lockVoided, archivedVoided);
+
+        // 2. Facturas activas anteriores a la retención
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int aged = archiveChunks(limit -> billArchiveRepository.lockAged(cutoff, limit), archivedAged);
+
+        if (voided + aged > 0) {
+            log.info("Facturas archivadas: {} anuladas y {} antiguas en {} ms",
+                    voided, aged, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private int archiveChunks(ChunkLocker locker, Counter counter) {
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Integer archived = transactionTemplate.execute(status -> {
+                List<Long> billIds = locker.lock(chunkSize);
+                if (!billIds.isEmpty()) {
+                    billArchiveRepository.archive(billIds, Instant.now());
+                }
+                return billIds.size();
+            });
+            if (archived == null) {
+                break;
+            }
+            counter.increment(archived);
+            total += archived;
+            // Un bloque incompleto indica que no quedan (o que el resto lo tiene bloqueado otra instancia)
+            if (archived < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface ChunkLocker {
+        List<Long> lock(int limit);
+    }
+}
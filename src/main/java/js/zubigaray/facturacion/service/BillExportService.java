@@ -0,0 +1,85 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.BillExportRow;
+import js.zubigaray.facturacion.repository.StreamingQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class BillExportService {
+
+    // El OutputStream pertenece a la respuesta HTTP: el generador no debe cerrarlo
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final StreamingQueryRepository streamingQueryRepository;
+
+    /**
+     * Escribe todas las facturas activas con sus detalles como un array JSON, a medida que se leen de la base de datos.
+     * Solo se mantiene en memoria la fila actual, por lo que el consumo de heap es constante sin importar el volumen.
+     * @param out Stream de salida (normalmente el cuerpo de la respuesta HTTP).
+     */
+    @Transactional(readOnly = true)
+    public void exportActive(OutputStream out) {
+        try (Stream<BillExportRow> rows = streamingQueryRepository.streamActiveExportRows();
+             JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+
+            json.writeStartArray();
+            Long currentBillId = null;
+
+            Iterator<BillExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                BillExportRow row = iterator.next();
+
+                // Las filas llegan ordenadas por factura: un cambio de ID cierra la factura anterior
+                if (!row.billId().equals(currentBillId)) {
+                    if (currentBillId != null) {
+                        endBill(json);
+                    }
+                    startBill(json, row);
+                    currentBillId = row.billId();
+                }
+                writeDetail(json, row);
+            }
+
+            if (currentBillId != null) {
+                endBill(json);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private void startBill(JsonGenerator json, BillExportRow row) {
+        json.writeStartObject();
+        json.writeNumberProperty("id", row.billId());
+        json.writeStringProperty("dateTime", row.dateTime().toString());
+        json.writeNumberProperty("userId", row.userId());
+        json.writeStringProperty("username", row.username());
+        json.writeNumberProperty("total", row.total());
+        json.writeArrayPropertyStart("details");
+    }
+
+    private void writeDetail(JsonGenerator json, BillExportRow row) {
+        json.writeStartObject();
+        json.writeNumberProperty("productId", row.productId());
+        json.writeNumberProperty("quantity", row.quantity());
+        json.writeNumberProperty("unitPrice", row.unitPrice());
+        json.writeNumberProperty("subtotal", row.subtotal());
+        json.writeEndObject();
+    }
+
+    private void endBill(JsonGenerator json) {
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,229 @@
+package js.zubigaray.facturacion.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import js.zubigaray.facturacion.dto.BillRequest;
+import js.zubigaray.facturacion.dto.BillResponse;
+import js.zubigaray.facturacion.exception.custom_exceptions.IdempotencyKeyBillGoneException;
+import js.zubigaray.facturacion.exception.custom_exceptions.IdempotencyKeyInProgressException;
+import js.zubigaray.facturacion.exception.custom_exceptions.IdempotencyKeyReuseException;
+import js.zubigaray.facturacion.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Creación idempotente de facturas con el header Idempotency-Key (reintentos de terminales POS ante timeouts).
+ * <p>
+ * Un mapa en memoria guarda, por clave, un futuro con el resultado: la primera petición lo crea y ejecuta la
+ * transacción; los duplicados concurrentes esperan ese mismo futuro (solo uno se ejecuta) y los posteriores
+ * reciben la factura original sin volver a ejecutar nada (solo se relee la factura, para responder igual que
+ * cualquier otra instancia si se anuló o archivó). La clave se persiste en idempotency_keys en la misma
+ * transacción que la factura, así un reintento que llega a otra instancia (o después de un reinicio) también
+ * devuelve la original: si dos instancias la procesan a la vez, la clave primaria hace fallar a la segunda,
+ * que hace rollback (factura y stock incluidos) y responde con la de la primera.
+ * <p>
+ * Las claves son por usuario autenticado y vencen tras ttl; una petición que falla no queda registrada y puede
+ * reintentarse con la misma clave. Reutilizar una clave con otra petición se rechaza, y un reintento cuya factura
+ * original ya se anuló o archivó recibe IdempotencyKeyBillGoneException (410).
+ * Métricas: cache.gets{cache="billIdempotencyKeys"}.
+ */
+@Service
+@Slf4j
+public class BillIdempotencyStore {
+
+    private final BillService billService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final int sweepBatchSize;
+    private final Cache<String, CompletableFuture<Completed>> recent;
+
+    public BillIdempotencyStore(
+            BillService billService,
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${bills.idempotency.ttl:24h}") Duration ttl,
+            @Value("${bills.idempotency.wait-timeout:30s}") Duration waitTimeout,
+            @Value("${bills.idempotency.maximum-size:100000}") long maximumSize,
+            @Value("${bills.idempotency.sweep.batch-size:1000}") int sweepBatchSize
+    ) {
+        this.billService = billService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.sweepBatchSize = sweepBatchSize;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "billIdempotencyKeys");
+    }
+
+    /**
+     * Crea la factura una sola vez por clave.
+     * @param username Usuario autenticado (espacio de claves).
+     * @param idempotencyKey Valor del header Idempotency-Key.
+     * @return La factura creada, o la original si la clave ya se usó (replayed = true).
+     */
+    public Result create(String username, String idempotencyKey, BillRequest request) {
+        String key = username + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        // 1. Duplicado en memoria (terminado o en curso): se espera el mismo resultado, sin ejecutar nada
+        CompletableFuture<Completed> created = new CompletableFuture<>();
+        CompletableFuture<Completed> existing = recent.asMap().putIfAbsent(key, created);
+        if (existing != null) {
+            return replay(await(existing, idempotencyKey), requestHash, idempotencyKey);
+        }
+
+        // 2. Primera petición con esta clave en la instancia
+        try {
+            Result result = execute(key, requestHash, request);
+            created.complete(new Completed(requestHash, result.bill()));
+            return result;
+        } catch (RuntimeException e) {
+            // Nada quedó registrado: los que esperaban reciben el mismo error y un reintento vuelve a ejecutar
+            recent.asMap().remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Borra las claves vencidas por lotes (cada lote es una sentencia independiente). */
+    @Scheduled(fixedDelayString = "${bills.idempotency.sweep.interval:10m}",
+            initialDelayString = "${bills.idempotency.sweep.interval:10m}")
+    public void sweepExpired() {
+        Instant now = Instant.now();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = idempotencyKeyRepository.deleteExpired(now, sweepBatchSize);
+            total += deleted;
+        } while (deleted == sweepBatchSize);
+        log.debug("Idempotency keys vencidas eliminadas: {}", total);
+    }
+
+    private Result execute(String key, String requestHash, BillRequest request) {
+        // 1. Clave procesada por otra instancia o antes de un reinicio
+        Optional<Result> stored = findStored(key, requestHash);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        // 2. Crear la factura y registrar la clave en la misma transacción
+        try {
+            return new Result(createAndRegister(key, requestHash, request), false);
+        } catch (DuplicateKeyException e) {
+            // Otra instancia registró la clave primero: esta transacción hizo rollback, se devuelve la original
+            stored = findStored(key, requestHash);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            // La fila existente está vencida pero aún no se barrió: se descarta y se reintenta una vez
+            idempotencyKeyRepository.deleteExpired(key, Instant.now());
+            return new Result(createAndRegister(key, requestHash, request), false);
+        }
+    }
+
+    private BillResponse createAndRegister(String key, String requestHash, BillRequest request) {
+        return transactionTemplate.execute(status -> {
+            BillResponse bill = billService.create(request);
+            Instant now = Instant.now();
+            idempotencyKeyRepository.insert(key, requestHash, bill.getId(), now, now.plus(ttl));
+            return bill;
+        });
+    }
+
+    private Optional<Result> findStored(String key, String requestHash) {
+        return idempotencyKeyRepository.find(key, Instant.now()).map(stored -> {
+            if (!stored.requestHash().equals(requestHash)) {
+                throw new IdempotencyKeyReuseException("Idempotency-Key was already used with a different request");
+            }
+            return new Result(currentBill(stored.billId()), true);
+        });
+    }
+
+    /**
+     * Factura original en su estado actual. Si la clave sigue vigente pero la factura se anuló o archivó, no se crea
+     * otra ni se devuelve un 400: la respuesta es la misma en todas las instancias, con o sin la clave en memoria.
+     */
+    private BillResponse currentBill(Long billId) {
+        return billService.findResponse(billId)
+                .orElseThrow(() -> new IdempotencyKeyBillGoneException(
+                        "The bill created with this Idempotency-Key was voided or archived: " + billId));
+    }
+
+    private Completed await(CompletableFuture<Completed> future, String idempotencyKey) {
+        try {
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("A request with Idempotency-Key " + idempotencyKey + " is still in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Interrupted while waiting for Idempotency-Key " + idempotencyKey);
+        }
+    }
+
+    private Result replay(Completed completed, String requestHash, String idempotencyKey) {
+        if (!completed.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key " + idempotencyKey + " was already used with a different request");
+        }
+        return new Result(currentBill(completed.bill().getId()), true);
+    }
+
+    /**
+     * SHA-256 de la petición normalizada (usuario y cantidades agrupadas por producto), independiente del orden
+     * de las líneas y del formato del JSON.
+     */
+    static String hash(BillRequest request) {
+        StringBuilder canonical = new StringBuilder().append(request.getUserId());
+        SortedMap<Long, Long> quantities = BillService.groupQuantities(request.getDetails());
+        for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+            canonical.append('|').append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Resultado de la creación: la factura y si es la respuesta original repetida. */
+    public record Result(BillResponse bill, boolean replayed) {
+    }
+
+    // Resultado guardado en memoria para los duplicados
+    private record Completed(String requestHash, BillResponse bill) {
+    }
+}
@@ -0,0 +1,174 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.BillRequest;
+import js.zubigaray.facturacion.dto.BulkBillResponse;
+import js.zubigaray.facturacion.dto.BulkBillResult;
+import js.zubigaray.facturacion.entity.BillEntity;
+import js.zubigaray.facturacion.entity.ProductEntity;
+import js.zubigaray.facturacion.entity.UserEntity;
+import js.zubigaray.facturacion.event.BillCreatedEvent;
+import js.zubigaray.facturacion.exception.custom_exceptions.InsufficientStockException;
+import js.zubigaray.facturacion.repository.BillRepository;
+import js.zubigaray.facturacion.repository.ProductRepository;
+import js.zubigaray.facturacion.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Ingesta masiva de facturas (ej. lotes de terminales POS).
+ * Las facturas se procesan en bloques, cada uno en su propia transacción: usuarios y productos se cargan con una
+ * consulta por bloque, y las filas de bills y bill_user se insertan con batching JDBC (IDs pre-asignados por el
+ * generador de tabla pooled de BillEntity). Una factura inválida o sin stock se rechaza sin abortar el resto del lote.
+ */
+@Service
+@Slf4j
+public class BillIngestionService {
+
+    private final BillRepository billRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final StockReservationService stockReservationService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BillIngestionService(
+            BillRepository billRepository,
+            UserRepository userRepository,
+            ProductRepository productRepository,
+            StockReservationService stockReservationService,
+            OutboxService outboxService,
+            PlatformTransactionManager transactionManager,
+            @Value("${bills.bulk.chunk-size:500}") int chunkSize
+    ) {
+        this.billRepository = billRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.stockReservationService = stockReservationService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Crea todas las facturas válidas del lote y devuelve el resultado de cada una en el orden recibido.
+     * @param bills Facturas a crear.
+     * @return Resultado por factura (ID creado o motivo del rechazo).
+     */
+    public BulkBillResponse ingest(List<BillRequest> bills) {
+        BulkBillResult[] results = new BulkBillResult[bills.size()];
+
+        for (int from = 0; from < bills.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, bills.size());
+            int offset = from;
+            List<BillRequest> chunk = bills.subList(from, to);
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> ingestChunk(chunk, offset, results));
+            } catch (RuntimeException e) {
+                // El bloque completo hizo rollback (incluidas sus reservas de stock): ninguna factura quedó creada
+                log.error("Error al persistir el bloque de facturas [{}, {}): {}", from, to, e.getMessage());
+                for (int i = from; i < to; i++) {
+                    results[i] = rejected(i, "Batch write failed: " + e.getMessage());
+                }
+            }
+        }
+
+        int accepted = (int) Arrays.stream(results).filter(BulkBillResult::isAccepted).count();
+        return BulkBillResponse.builder()
+                .accepted(accepted)
+                .rejected(results.length - accepted)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private void ingestChunk(List<BillRequest> chunk, int offset, BulkBillResult[] results) {
+        // 1. Cargar usuarios y productos de todo el bloque con una consulta cada uno
+        Map<Long, UserEntity> users = loadUsers(chunk);
+        Map<Long, ProductEntity> products = loadProducts(chunk);
+
+        // 2. Validar, reservar stock y construir cada factura; las inválidas se rechazan individualmente
+        List<BillEntity> bills = new ArrayList<>(chunk.size());
+        List<Integer> indexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = offset + i;
+            try {
+                bills.add(prepareBill(chunk.get(i), users, products));
+                indexes.add(index);
+            } catch (IllegalArgumentException | InsufficientStockException e) {
+                results[index] = rejected(index, e.getMessage());
+            }
+        }
+
+        // 3. Insertar facturas y detalles del bloque en lotes JDBC
+        List<BillEntity> saved = billRepository.saveAll(bills);
+        billRepository.flush();
+
+        // 4. Registrar un evento por factura en el outbox con un lote de INSERTs
+        outboxService.appendAll(saved.stream()
+                .map(bill -> new BillCreatedEvent(bill.getId(), bill.getUser().getId(), bill.getTotal()))
+                .toList());
+
+        for (int i = 0; i < saved.size(); i++) {
+            int index = indexes.get(i);
+            results[index] = BulkBillResult.builder()
+                    .index(index)
+                    .accepted(true)
+                    .billId(saved.get(i).getId())
+                    .build();
+        }
+    }
+
+    private BillEntity prepareBill(BillRequest request, Map<Long, UserEntity> users, Map<Long, ProductEntity> products) {
+        UserEntity user = users.get(request.getUserId());
+        if (user == null) {
+            throw new IllegalArgumentException("User not found with ID: " + request.getUserId());
+        }
+
+        SortedMap<Long, Long> quantities = BillService.groupQuantities(request.getDetails());
+        BillService.validateProducts(quantities.keySet(), products);
+
+        // La reserva es todo o nada: si falla, el stock de esta factura queda intacto y el bloque continúa
+        stockReservationService.reserve(quantities);
+
+        return BillService.buildBill(user, quantities, products);
+    }
+
+    private Map<Long, UserEntity> loadUsers(List<BillRequest> chunk) {
+        Set<Long> userIds = new HashSet<>();
+        chunk.forEach(bill -> userIds.add(bill.getUserId()));
+
+        Map<Long, UserEntity> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+        return users;
+    }
+
+    private Map<Long, ProductEntity> loadProducts(List<BillRequest> chunk) {
+        Set<Long> productIds = new HashSet<>();
+        chunk.forEach(bill -> bill.getDetails().forEach(detail -> productIds.add(detail.getProductId())));
+
+        Map<Long, ProductEntity> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+        return products;
+    }
+
+    private BulkBillResult rejected(int index, String error) {
+        return BulkBillResult.builder()
+                .index(index)
+                .accepted(false)
+                .error(error)
+                .build();
+    }
+}
@@ -1,17 +1,32 @@
 package js.zubigaray.facturacion.service;
 
 import js.zubigaray.facturacion.dto.BillDetailRequest;
+import js.zubigaray.facturacion.dto.BillRequest;
+import js.zubigaray.facturacion.dto.BillResponse;
+import js.zubigaray.facturacion.dto.CursorPage;
 import js.zubigaray.facturacion.entity.*;
+import js.zubigaray.facturacion.event.BillCreatedEvent;
+import js.zubigaray.facturacion.event.BillVoidedEvent;
 import js.zubigaray.facturacion.repository.BillRepository;
 import js.zubigaray.facturacion.repository.ProductRepository;
 import js.zubigaray.facturacion.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +35,8 @@ public class BillService {
     private final BillRepository billRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final StockReservationService stockReservationService;
+    private final OutboxService outboxService;
 
     // Obtener todas las facturas activas con el usuario asociado cargado (JOIN FETCH)
     @Transactional(readOnly = true)
@@ -27,6 +44,46 @@ public class BillService {
         return billRepository.findAllActive();
     }
 
+    /**
+     * Lista facturas activas paginadas por keyset, opcionalmente filtradas por usuario y rango de fechas.
+     * Cada página cuesta una consulta acotada por índice, sin importar cuántas facturas haya en total.
+     * @param userId Usuario de las facturas (null para todos).
+     * @param from Fecha inicial inclusiva (null sin límite).
+     * @param to Fecha final exclusiva (null sin límite).
+     * @param cursor Cursor devuelto por la página anterior (null para la primera página).
+     * @param size Cantidad máxima de facturas de la página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BillResponse> findActivePage(Long userId, LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        BillCursor position = cursor == null ? null : BillCursor.decode(cursor);
+        // Se pide una fila extra para saber si existe una página siguiente
+        Pageable limit = PageRequest.ofSize(size + 1);
+
+        List<BillEntity> bills = userId == null
+                ? billRepository.findActivePage(from, to,
+                        position == null ? null : position.dateTime(),
+                        position == null ? null : position.id(),
+                        limit)
+                : billRepository.findActivePageByUser(userId, from, to,
+                        position == null ? null : position.id(),
+                        limit);
+
+        boolean hasMore = bills.size() > size;
+        List<BillEntity> page = hasMore ? bills.subList(0, size) : bills;
+
+        String nextCursor = null;
+        if (hasMore) {
+            BillEntity last = page.get(page.size() - 1);
+            nextCursor = new BillCursor(last.getDateTime(), last.getId()).encode();
+        }
+
+        return CursorPage.<BillResponse>builder()
+                .items(page.stream().map(this::convertToDTO).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public Optional<BillEntity> findById(Long id) {
         return billRepository.findById(id);
@@ -36,6 +93,7 @@ public class BillService {
      * Crea una nueva factura, actualiza el stock de los productos y gestiona los detalles.
      * Es crucial que sea @Transactional para asegurar que todas las operaciones se completen
      * correctamente o se reviertan (rollback) si algo falla (ej. falta de stock).
+     * Los productos se cargan en una sola consulta y el stock se descuenta con un único lote de UPDATEs.
      */
     @Transactional
     public BillEntity createBill(Long userId, List<BillDetailRequest> details) {
@@ -43,51 +101,154 @@ public class BillService {
         UserEntity user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
 
-        // 2. Crear la entidad de la factura
+        // 2. Agrupar las cantidades por producto (una línea por producto, ordenadas por ID)
+        SortedMap<Long, Long> quantities = groupQuantities(details);
+
+        // 3. Cargar todos los productos de la factura en una sola consulta
+        Map<Long, ProductEntity> products = findActiveProducts(quantities.keySet());
+
+        // 4. Reservar el stock con un único lote de UPDATEs condicionados (stock >= cantidad)
+        stockReservationService.reserve(quantities);
+
+        // 5. Crear la factura y sus detalles (BillUser) con el precio y subtotal congelados
+        BillEntity bill = buildBill(user, quantities, products);
+
+        // 6. Guardar la factura (persistirá los detalles en cascada)
+        // En este punto, JPA insertará la BillEntity, obtendrá el ID generado, y lo usará
+        // para insertar correctamente cada BillUser gracias a @MapsId y CascadeType.ALL.
+        BillEntity saved = billRepository.save(bill);
+
+        // 7. Registrar el evento en el outbox (misma transacción); el trabajo derivado se hace en segundo plano
+        outboxService.append(new BillCreatedEvent(saved.getId(), user.getId(), saved.getTotal()));
+        return saved;
+    }
+
+    // Crear una factura a partir del DTO de la API y devolver su DTO de respuesta
+    @Transactional
+    public BillResponse create(BillRequest request) {
+        return convertToDTO(createBill(request.getUserId(), request.getDetails()));
+    }
+
+    // DTO de respuesta de una factura existente (reintentos con Idempotency-Key)
+    @Transactional(readOnly = true)
+    public Optional<BillResponse> findResponse(Long id) {
+        return billRepository.findById(id).map(this::convertToDTO);
+    }
+
+    /**
+     * Construye la factura con sus detalles, congelando el precio unitario y calculando subtotales y total.
+     * Los productos deben estar validados y el stock ya reservado.
+     */
+    static BillEntity buildBill(UserEntity user, SortedMap<Long, Long> quantities, Map<Long, ProductEntity> products) {
         BillEntity bill = new BillEntity();
         bill.setUser(user);
 
-        // 3. Procesar los detalles de la factura y actualizar el stock
-        List<BillUser> billDetails = new ArrayList<>();
+        List<BillUser> billDetails = new ArrayList<>(quantities.size());
+        double total = 0;
+        for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+            ProductEntity product = products.get(entry.getKey());
+            double subtotal = product.getPrice() * entry.getValue();
+
+            BillUserId billUserId = new BillUserId(null, product.getId()); // billId se seteará al guardar la factura
+            billDetails.add(BillUser.builder()
+                    .id(billUserId)
+                    .bill(bill)
+                    .product(product)
+                    .quantity(entry.getValue())
+                    .unitPrice(product.getPrice())
+                    .subtotal(subtotal)
+                    .build());
+            total += subtotal;
+        }
+        bill.setDetails(billDetails);
+        bill.setTotal(total);
+        return bill;
+    }
 
+    /**
+     * Suma las cantidades de las líneas que repiten producto.
+     * El orden por ID garantiza que las filas de productos se bloqueen siempre en el mismo orden.
+     * @throws IllegalArgumentException Si la suma de un producto desborda un long (una suma negativa
+     *         pasaría la validación de stock y lo incrementaría).
+     */
+    static SortedMap<Long, Long> groupQuantities(List<BillDetailRequest> details) {
+        SortedMap<Long, Long> quantities = new TreeMap<>();
         for (BillDetailRequest detailRequest : details) {
-            ProductEntity product = productRepository.findById(detailRequest.getProductId())
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + detailRequest.getProductId()));
+            try {
+                quantities.merge(detailRequest.getProductId(), detailRequest.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Quantity overflow for product ID: " + detailRequest.getProductId());
+            }
+        }
+        return quantities;
+    }
 
-            Long quantity = detailRequest.getQuantity();
+    /** Carga los productos solicitados con un único SELECT ... WHERE id IN (...) y valida que existan y estén activos. */
+    private Map<Long, ProductEntity> findActiveProducts(Set<Long> productIds) {
+        Map<Long, ProductEntity> products = new HashMap<>();
+        for (ProductEntity product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+        validateProducts(productIds, products);
+        return products;
+    }
 
-            // Verificar si el producto está activo
+    /** Valida que todos los productos solicitados estén cargados y activos. */
+    static void validateProducts(Set<Long> productIds, Map<Long, ProductEntity> products) {
+        for (Long productId : productIds) {
+            ProductEntity product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found with ID: " + productId);
+            }
             if (!product.isActive()) {
                 throw new IllegalArgumentException("Product is inactive: " + product.getName());
             }
+        }
+    }
 
-            // Verificar y restar stock (la lógica de la entidad lanza la excepción)
-            product.subtractStock(quantity);
+    /**
+     * Convierte la factura a un DTO (evita serializar la entidad del usuario con su contraseña).
+     * El total es una columna persistida, por lo que no se cargan los detalles.
+     */
+    private BillResponse convertToDTO(BillEntity bill) {
+        return BillResponse.builder()
+                .id(bill.getId())
+                .dateTime(bill.getDateTime())
+                .userId(bill.getUser().getId())
+                .username(bill.getUser().getUsername())
+                .total(bill.getTotal())
+                .build();
+    }
 
-            // Crear el detalle de la factura (BillUser)
-            BillUserId billUserId = new BillUserId(null, product.getId()); // billId se seteará al guardar la factura
-            BillUser billUser = BillUser.builder()
-                    .id(billUserId)
-                    .bill(bill)
-                    .product(product)
-                    .quantity(quantity)
-                    .build();
+    /** Posición keyset (fecha e ID de la última factura) codificada como cursor opaco en Base64 URL-safe. */
+    private record BillCursor(LocalDateTime dateTime, Long id) {
 
-            billDetails.add(billUser);
+        private String encode() {
+            String raw = dateTime + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
         }
 
-        // 4. Establecer los detalles en la factura
-        bill.setDetails(billDetails);
-
-        // 5. Guardar la factura (Persistirá los detalles y actualizará los productos por el efecto de 'subtractStock')
-        // En este punto, JPA insertará la BillEntity, obtendrá el ID generado, y lo usará
-        // para insertar correctamente cada BillUser gracias a @MapsId y CascadeType.ALL.
-        return billRepository.save(bill);
+        private static BillCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new BillCursor(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1))
+                );
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
     }
 
-    // Soft delete de la factura
+    // Soft delete de la factura; el evento se publica solo si la factura seguía activa
     @Transactional
-    public void softDelete(Long billId) {
-        billRepository.softDelete(billId);
+    public boolean softDelete(Long billId) {
+        if (billRepository.softDelete(billId) == 0) {
+            return false;
+        }
+        outboxService.append(new BillVoidedEvent(billId));
+        return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.BillExportRow;
+import js.zubigaray.facturacion.dto.ProductSalesRow;
+import js.zubigaray.facturacion.repository.StreamingQueryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Genera reportes XLSX con SXSSFWorkbook: solo una ventana de filas queda en memoria,
+ * el resto se vuelca a archivos temporales comprimidos a medida que se escribe.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExcelReportGenerator {
+
+    // Filas que SXSSF mantiene en memoria antes de volcarlas a disco
+    private static final int ROW_ACCESS_WINDOW = 100;
+    // Límite de filas de una hoja XLSX (incluida la cabecera): al alcanzarlo se abre una hoja nueva
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private static final String[] BILL_HEADERS =
+            {"Factura", "Fecha", "Usuario ID", "Usuario", "Producto ID", "Cantidad", "Precio unitario", "Subtotal", "Total factura"};
+    private static final String[] PRODUCT_SALES_HEADERS =
+            {"Producto ID", "Producto", "Unidades vendidas", "Ingresos"};
+
+    private final StreamingQueryRepository streamingQueryRepository;
+
+    /**
+     * Genera el reporte del job en el executor de reportes, leyendo la base de datos como un cursor.
+     * Nunca lanza excepciones: los errores quedan registrados en el estado del job.
+     */
+    @Async("reportExecutor")
+    @Transactional(readOnly = true)
+    public void generate(ReportJob job) {
+        job.start();
+        Path file = null;
+        try {
+            file = Files.createTempFile("report-" + job.getId() + "-", ".xlsx");
+            long rows = switch (job.getType()) {
+                case BILLS -> writeBills(file, job);
+                case PRODUCT_SALES -> writeProductSales(file, job);
+            };
+            job.complete(file, rows);
+            log.info("Reporte {} ({}) generado: {} filas", job.getId(), job.getType(), rows);
+        } catch (Exception e) {
+            log.error("Error generando el reporte {}: {}", job.getId(), e.getMessage(), e);
+            deleteQuietly(file);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private long writeBills(Path file, ReportJob job) throws IOException {
+        try (Stream<BillExportRow> rows = streamingQueryRepository.streamActiveExportRows()) {
+            return write(file, "Facturas", BILL_HEADERS, rows.iterator(), job, (row, bill, styles) -> {
+                row.createCell(0).setCellValue(bill.billId());
+                row.createCell(1).setCellValue(bill.dateTime());
+                row.getCell(1).setCellStyle(styles.date());
+                row.createCell(2).setCellValue(bill.userId());
+                row.createCell(3).setCellValue(bill.username());
+                row.createCell(4).setCellValue(bill.productId());
+                row.createCell(5).setCellValue(bill.quantity());
+                row.createCell(6).setCellValue(bill.unitPrice());
+                row.createCell(7).setCellValue(bill.subtotal());
+                row.createCell(8).setCellValue(bill.total());
+            });
+        }
+    }
+
+    private long writeProductSales(Path file, ReportJob job) throws IOException {
+        try (Stream<ProductSalesRow> rows = streamingQueryRepository.streamProductSales()) {
+            return write(file, "Ventas por producto", PRODUCT_SALES_HEADERS, rows.iterator(), job, (row, sales, styles) -> {
+                row.createCell(0).setCellValue(sales.productId());
+                row.createCell(1).setCellValue(sales.productName());
+                row.createCell(2).setCellValue(sales.quantity());
+                row.createCell(3).setCellValue(sales.revenue());
+            });
+        }
+    }
+
+    /** Escribe las filas en una o más hojas (si se supera el límite de filas de XLSX) y guarda el libro en el archivo. */
+    private <T> long write(Path file, String sheetName, String[] headers, Iterator<T> rows, ReportJob job,
+                           RowWriter<T> rowWriter) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Styles styles = createStyles(workbook);
+            long written = 0;
+            int sheetNumber = 1;
+            SXSSFSheet sheet = createSheet(workbook, sheetName, sheetNumber, headers, styles);
+            int rowIndex = 1;
+
+            while (rows.hasNext()) {
+                if (rowIndex == MAX_ROWS_PER_SHEET) {
+                    sheet = createSheet(workbook, sheetName, ++sheetNumber, headers, styles);
+                    rowIndex = 1;
+                }
+                rowWriter.write(sheet.createRow(rowIndex++), rows.next(), styles);
+
+                if (++written % PROGRESS_INTERVAL == 0) {
+                    job.progress(written);
+                }
+            }
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+            return written;
+        } finally {
+            // Elimina los archivos temporales de SXSSF
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private SXSSFSheet createSheet(SXSSFWorkbook workbook, String name, int number, String[] headers, Styles styles) {
+        SXSSFSheet sheet = workbook.createSheet(number == 1 ? name : name + " (" + number + ")");
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+            header.getCell(i).setCellStyle(styles.header());
+        }
+        return sheet;
+    }
+
+    private Styles createStyles(SXSSFWorkbook workbook) {
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        CellStyle header = workbook.createCellStyle();
+        header.setFont(bold);
+
+        CellStyle date = workbook.createCellStyle();
+        date.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        return new Styles(header, date);
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el archivo temporal {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record Styles(CellStyle header, CellStyle date) {
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(Row row, T item, Styles styles);
+    }
+}
@@ -0,0 +1,205 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import js.zubigaray.facturacion.exception.custom_exceptions.TooManyLoginAttemptsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Rate limiter en memoria para los intentos de login, con un token bucket por username y otro por IP.
+ * Se consulta antes de AuthenticationManager.authenticate, así los intentos rechazados no cuestan un BCrypt
+ * ni una consulta a la base de datos.
+ * <p>
+ * Cada bucket es un único AtomicLong con el "tiempo teórico de llegada" (GCRA, equivalente a un token bucket):
+ * consumir un token es un CAS, sin locks. Los buckets que vuelven a estar llenos se eliminan con una rueda de
+ * tiempo (time wheel) que avanza un slot por tick y solo revisa las claves programadas en ese slot.
+ * Métricas: auth.login.attempts{result} y auth.login.rate_limiter.buckets.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Limit userLimit;
+    private final Limit ipLimit;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final TimeWheel timeWheel;
+    private final Counter allowed;
+    private final Counter rejectedByUser;
+    private final Counter rejectedByIp;
+
+    public LoginRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${security.login-rate-limit.user.capacity:5}") int userCapacity,
+            @Value("${security.login-rate-limit.user.refill-period:1m}") Duration userRefillPeriod,
+            @Value("${security.login-rate-limit.ip.capacity:30}") int ipCapacity,
+            @Value("${security.login-rate-limit.ip.refill-period:1m}") Duration ipRefillPeriod,
+            @Value("${security.login-rate-limit.wheel.tick:1s}") Duration tick,
+            @Value("${security.login-rate-limit.wheel.slots:512}") int slots
+    ) {
+        this.userLimit = new Limit(userCapacity, userRefillPeriod);
+        this.ipLimit = new Limit(ipCapacity, ipRefillPeriod);
+        this.timeWheel = new TimeWheel(slots, tick.toNanos(), System.nanoTime());
+
+        this.allowed = attempts(meterRegistry, "allowed");
+        this.rejectedByUser = attempts(meterRegistry, "rejected_user");
+        this.rejectedByIp = attempts(meterRegistry, "rejected_ip");
+        Gauge.builder("auth.login.rate_limiter.buckets", buckets, ConcurrentHashMap::size)
+                .description("Buckets activos del rate limiter de login")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consume un intento de login para el usuario y la IP.
+     * @throws TooManyLoginAttemptsException Si alguno de los dos buckets está vacío.
+     */
+    public void acquire(String username, String clientIp) {
+        long now = System.nanoTime();
+
+        // 1. Primero la IP: frena el credential stuffing (muchos usuarios desde el mismo origen)
+        long ipWait = tryConsume("ip:" + clientIp, ipLimit, now);
+        if (ipWait > 0) {
+            rejectedByIp.increment();
+            throw new TooManyLoginAttemptsException("Demasiados intentos de login desde esta dirección", Duration.ofNanos(ipWait));
+        }
+
+        // 2. Luego el usuario: frena los ataques distribuidos contra una misma cuenta
+        long userWait = tryConsume("user:" + username.toLowerCase(Locale.ROOT), userLimit, now);
+        if (userWait > 0) {
+            rejectedByUser.increment();
+            throw new TooManyLoginAttemptsException("Demasiados intentos de login para este usuario", Duration.ofNanos(userWait));
+        }
+
+        allowed.increment();
+    }
+
+    /** Avanza la rueda de tiempo y elimina los buckets que ya se rellenaron por completo. */
+    @Scheduled(fixedRateString = "${security.login-rate-limit.wheel.tick:1s}")
+    public void expireIdleBuckets() {
+        long now = System.nanoTime();
+        timeWheel.advance(now, key -> {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                return;
+            }
+            bucket.scheduled.set(false);
+            if (bucket.isFull(now)) {
+                // Un intento concurrente sobre un bucket recién eliminado se pierde: a lo sumo concede un token extra
+                buckets.remove(key, bucket);
+            } else {
+                schedule(key, bucket);
+            }
+        });
+    }
+
+    /**
+     * Intenta consumir un token del bucket.
+     * @return 0 si se concedió, o el tiempo en nanosegundos hasta que haya un token disponible.
+     */
+    private long tryConsume(String key, Limit limit, long now) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(now));
+        while (true) {
+            long tat = bucket.theoreticalArrival.get();
+            long base = Math.max(tat, now);
+            long next = base + limit.emissionInterval();
+            // El bucket está vacío si el siguiente token llegaría más allá de la ráfaga permitida
+            if (next - now > limit.burstWindow()) {
+                return next - now - limit.burstWindow();
+            }
+            if (bucket.theoreticalArrival.compareAndSet(tat, next)) {
+                if (bucket.scheduled.compareAndSet(false, true)) {
+                    timeWheel.schedule(key, next);
+                }
+                return 0;
+            }
+        }
+    }
+
+    private void schedule(String key, Bucket bucket) {
+        if (bucket.scheduled.compareAndSet(false, true)) {
+            timeWheel.schedule(key, bucket.theoreticalArrival.get());
+        }
+    }
+
+    private static Counter attempts(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.login.attempts")
+                .description("Intentos de login evaluados por el rate limiter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /** Capacidad de ráfaga y periodo en el que se recarga por completo. */
+    private record Limit(long emissionInterval, long burstWindow) {
+
+        Limit(int capacity, Duration refillPeriod) {
+            this(refillPeriod.toNanos() / capacity, refillPeriod.toNanos() / capacity * capacity);
+        }
+    }
+
+    private static final class Bucket {
+        /** Momento (System.nanoTime) en que el bucket vuelve a estar lleno. */
+        private final AtomicLong theoreticalArrival;
+        /** Indica si la clave ya está en algún slot de la rueda, para no programarla dos veces. */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        private boolean isFull(long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+    }
+
+    /**
+     * Rueda de tiempo: un arreglo circular de colas, una por tick. Una clave se programa en el slot de su vencimiento;
+     * si el vencimiento está más lejos que una vuelta completa, al revisarla se vuelve a programar.
+     */
+    private static final class TimeWheel {
+        private final Queue<String>[] slots;
+        private final long tickNanos;
+        private final long origin;
+        private volatile long currentTick;
+
+        @SuppressWarnings("unchecked")
+        private TimeWheel(int size, long tickNanos, long origin) {
+            this.slots = new Queue[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = new ConcurrentLinkedQueue<>();
+            }
+            this.tickNanos = tickNanos;
+            this.origin = origin;
+        }
+
+        private void schedule(String key, long deadline) {
+            // Como mínimo el tick siguiente, para no caer en un slot que ya se está drenando
+            long tick = Math.max((deadline - origin) / tickNanos + 1, currentTick + 1);
+            slots[(int) (tick % slots.length)].add(key);
+        }
+
+        /** Drena los slots vencidos hasta el tick actual. Solo lo invoca el hilo del scheduler. */
+        private void advance(long now, Consumer<String> expired) {
+            long targetTick = (now - origin) / tickNanos;
+            int steps = (int) Math.min(targetTick - currentTick, slots.length);
+            for (int i = 0; i < steps; i++) {
+                currentTick++;
+                Queue<String> slot = slots[(int) (currentTick % slots.length)];
+                String key;
+                while ((key = slot.poll()) != null) {
+                    expired.accept(key);
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import js.zubigaray.facturacion.dto.OutboxEventRecord;
+import js.zubigaray.facturacion.repository.OutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Entrega en segundo plano los eventos del outbox a los @EventListener en proceso (ApplicationEventPublisher).
+ * <p>
+ * Cada evento se procesa en su propia transacción: se bloquea con FOR UPDATE SKIP LOCKED (varias instancias
+ * pueden drenar el outbox sin entregar dos veces el mismo evento), se publica y se borra. Los listeners que escriben
+ * en la base de datos lo hacen en esa misma transacción, así su efecto y el borrado del evento confirman juntos.
+ * Si un listener falla, la transacción hace rollback y el evento se reintenta con espera exponencial; tras
+ * max-attempts queda en la tabla sin volver a entregarse (métrica outbox.events.dead). Los efectos fuera de la base
+ * de datos pueden repetirse: la entrega es al menos una vez.
+ * <p>
+ * El despachador toma como máximo batch-size eventos por consulta y max-batches-per-run lotes por ejecución:
+ * ante una ráfaga el outbox absorbe la diferencia y se drena al ritmo del despachador, sin frenar la facturación.
+ * Métricas: outbox.events.pending, outbox.events.dead, outbox.lag (antigüedad del evento pendiente más viejo),
+ * outbox.delivery.lag (creación a entrega) y outbox.events.dispatched{result}.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(10);
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    private volatile OutboxRepository.Stats stats = new OutboxRepository.Stats(0, null, 0);
+
+    private final Timer deliveryLag;
+    private final Counter delivered;
+    private final Counter failed;
+
+    public OutboxDispatcher(
+            OutboxRepository outboxRepository,
+            OutboxService outboxService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.dispatcher.batch-size:100}") int batchSize,
+            @Value("${outbox.dispatcher.max-batches-per-run:10}") int maxBatchesPerRun,
+            @Value("${outbox.dispatcher.max-attempts:10}") int maxAttempts,
+            @Value("${outbox.dispatcher.retry-delay:1s}") Duration retryDelay
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+
+        Gauge.builder("outbox.events.pending", this, dispatcher -> dispatcher.stats.pending())
+                .description("Eventos del outbox pendientes de entrega")
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.dead", this, dispatcher -> dispatcher.stats.dead())
+                .description("Eventos del outbox que agotaron los reintentos")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", this, OutboxDispatcher::lagSeconds)
+                .description("Antigüedad del evento pendiente más viejo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("outbox.delivery.lag")
+                .description("Tiempo desde que se registra un evento hasta que se entrega")
+                .register(meterRegistry);
+        this.delivered = dispatched(meterRegistry, "success");
+        this.failed = dispatched(meterRegistry, "failure");
+    }
+
+    /** Drena el outbox en lotes acotados y actualiza las métricas de atraso. */
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-interval:500ms}",
+            initialDelayString = "${outbox.dispatcher.poll-interval:500ms}")
+    public void dispatch() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = outboxRepository.findAvailableIds(Instant.now(), maxAttempts, batchSize);
+            ids.forEach(this::deliver);
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        stats = outboxRepository.stats(maxAttempts);
+    }
+
+    private void deliver(Long id) {
+        try {
+            Boolean processed = transactionTemplate.execute(status -> {
+                // 1. Bloquear el evento; si otra instancia lo tiene o ya se entregó, se saltea
+                Optional<OutboxEventRecord> locked = outboxRepository.lock(id);
+                if (locked.isEmpty()) {
+                    return false;
+                }
+
+                // 2. Publicar a los listeners (en esta transacción) y borrar el evento
+                OutboxEventRecord event = locked.get();
+                eventPublisher.publishEvent(outboxService.deserialize(event));
+                outboxRepository.delete(id);
+                deliveryLag.record(Duration.between(event.createdAt(), Instant.now()));
+                return true;
+            });
+            if (Boolean.TRUE.equals(processed)) {
+                delivered.increment();
+            }
+        } catch (RuntimeException e) {
+            failed.increment();
+            scheduleRetry(id, e);
+        }
+    }
+
+    private void scheduleRetry(Long id, RuntimeException error) {
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.lock(id).ifPresent(event -> {
+            // Espera exponencial: retry-delay, 2x, 4x... hasta 10 minutos
+            Duration delay = retryDelay.multipliedBy(1L << Math.min(event.attempts(), 20));
+            if (delay.compareTo(MAX_RETRY_DELAY) > 0) {
+                delay = MAX_RETRY_DELAY;
+            }
+            String message = String.valueOf(error.getMessage());
+            outboxRepository.markFailed(id, Instant.now().plus(delay),
+                    message.length() > 500 ? message.substring(0, 500) : message);
+
+            if (event.attempts() + 1 >= maxAttempts) {
+                log.error("Evento {} ({}) descartado tras {} intentos", id, event.eventType(), maxAttempts, error);
+            } else {
+                log.warn("Error al entregar el evento {} ({}), se reintentará en {}: {}",
+                        id, event.eventType(), delay, error.getMessage());
+            }
+        }));
+    }
+
+    private double lagSeconds() {
+        Instant oldest = stats.oldestPending();
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+
+    private static Counter dispatched(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("outbox.events.dispatched")
+                .description("Entregas de eventos del outbox")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
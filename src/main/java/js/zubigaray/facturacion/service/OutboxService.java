@@ -0,0 +1,89 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.OutboxEventRecord;
+import js.zubigaray.facturacion.event.BillCreatedEvent;
+import js.zubigaray.facturacion.event.BillVoidedEvent;
+import js.zubigaray.facturacion.event.DomainEvent;
+import js.zubigaray.facturacion.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escritura de eventos de dominio en el outbox transaccional (outbox_events).
+ * El evento se inserta en la transacción del cambio que lo origina: si esa transacción hace rollback el evento
+ * desaparece con ella, y si confirma OutboxDispatcher lo entregará aunque la aplicación se reinicie.
+ * El camino de la petición solo paga un INSERT (o un lote de INSERTs) por evento.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    // Tipos de evento conocidos, por el nombre guardado en event_type
+    private static final Map<String, Class<? extends DomainEvent>> EVENT_TYPES = Map.of(
+            BillCreatedEvent.class.getSimpleName(), BillCreatedEvent.class,
+            BillVoidedEvent.class.getSimpleName(), BillVoidedEvent.class
+    );
+
+    // Ignora propiedades desconocidas: eventos escritos por una versión más nueva durante un despliegue gradual
+    private static final JsonMapper PAYLOAD_MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final OutboxRepository outboxRepository;
+
+    /** Agrega un evento al outbox. Debe llamarse dentro de la transacción del cambio. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(DomainEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /** Agrega varios eventos al outbox con un lote de INSERTs. Debe llamarse dentro de la transacción del cambio. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = events.stream()
+                .map(event -> new Object[]{typeOf(event), event.aggregateId(), serialize(event)})
+                .toList();
+        outboxRepository.insertAll(rows, Instant.now());
+    }
+
+    /** Reconstruye el evento guardado. */
+    public DomainEvent deserialize(OutboxEventRecord record) {
+        Class<? extends DomainEvent> type = EVENT_TYPES.get(record.eventType());
+        if (type == null) {
+            throw new IllegalStateException("Unknown outbox event type: " + record.eventType());
+        }
+        try {
+            return PAYLOAD_MAPPER.readValue(record.payload(), type);
+        } catch (JacksonException e) {
+            throw new IllegalStateException("Invalid payload for outbox event " + record.id(), e);
+        }
+    }
+
+    private static String typeOf(DomainEvent event) {
+        String type = event.getClass().getSimpleName();
+        if (!EVENT_TYPES.containsKey(type)) {
+            throw new IllegalArgumentException("Unregistered outbox event type: " + type);
+        }
+        return type;
+    }
+
+    private static String serialize(DomainEvent event) {
+        try {
+            return PAYLOAD_MAPPER.writeValueAsString(event);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Cannot serialize event " + event, e);
+        }
+    }
+}
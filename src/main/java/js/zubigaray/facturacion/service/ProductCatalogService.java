@@ -0,0 +1,163 @@
+package js.zubigaray.facturacion.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import js.zubigaray.facturacion.dto.CursorPage;
+import js.zubigaray.facturacion.dto.ProductResponse;
+import js.zubigaray.facturacion.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lecturas del catálogo de productos con caché en memoria.
+ * Los aciertos no abren transacción ni toman una conexión: solo las cargas consultan MySQL.
+ * Cada página (o producto) se guarda junto con su ETag, un SHA-256 de su contenido: todas las instancias
+ * calculan el mismo ETag para los mismos datos, y un If-None-Match anterior a un cambio ya no coincide.
+ * La invalidación es local: un alta, modificación o baja (ProductService.save/softDelete) vacía la caché
+ * de la instancia que la procesó; las demás sirven su copia hasta que vence (products.catalog-cache.ttl),
+ * que acota cuánto puede tardar un cambio en verse en todo el cluster.
+ * Métricas: cache.gets{cache="productCatalog"}.
+ */
+@Service
+public class ProductCatalogService {
+
+    private final ProductRepository productRepository;
+    private final Cache<Object, Cached<?>> cache;
+    // Se incrementa en cada invalidación: detecta las cargas concurrentes con un cambio
+    private final AtomicLong version = new AtomicLong();
+
+    public ProductCatalogService(
+            ProductRepository productRepository,
+            MeterRegistry meterRegistry,
+            @Value("${products.catalog-cache.maximum-size:10000}") long maximumSize,
+            @Value("${products.catalog-cache.ttl:30s}") Duration ttl
+    ) {
+        this.productRepository = productRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productCatalog");
+    }
+
+    /**
+     * Página del catálogo por keyset, desde la caché si ya se consultó desde el último cambio.
+     * @param cursor Cursor devuelto por la página anterior (null para la primera página).
+     * @param size Cantidad máxima de productos de la página.
+     * @param minPrice Precio mínimo inclusivo (null sin límite).
+     * @param maxPrice Precio máximo inclusivo (null sin límite).
+     */
+    public Cached<CursorPage<ProductResponse>> findPage(String cursor, int size, Double minPrice, Double maxPrice) {
+        Long afterId = cursor == null ? null : decodeCursor(cursor);
+        PageQuery query = new PageQuery(afterId, size, minPrice, maxPrice);
+        return cached(query, () -> loadPage(query));
+    }
+
+    /** Producto activo por ID, desde la caché si ya se consultó desde el último cambio. */
+    public Optional<Cached<ProductResponse>> findById(Long id) {
+        Cached<Optional<ProductResponse>> product = cached(new ProductQuery(id), () -> productRepository.findCatalogProduct(id));
+        return product.value().map(value -> new Cached<>(value, product.etag()));
+    }
+
+    /**
+     * Descarta la caché del catálogo de esta instancia. Se repite al terminar la transacción en curso, por si una lectura
+     * concurrente volvió a cargar datos anteriores al commit.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Cached<T> cached(Object key, Supplier<T> loader) {
+        Cached<T> hit = (Cached<T>) cache.getIfPresent(key);
+        if (hit != null) {
+            return hit;
+        }
+
+        long loadedVersion = version.get();
+        T value = loader.get();
+        Cached<T> loaded = new Cached<>(value, etag(value));
+        cache.put(key, loaded);
+        // Si el catálogo cambió mientras se cargaba, la entrada puede estar desactualizada
+        if (version.get() != loadedVersion) {
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    private CursorPage<ProductResponse> loadPage(PageQuery query) {
+        // Se pide una fila extra para saber si existe una página siguiente
+        List<ProductResponse> products = productRepository.findCatalogPage(query.afterId(), query.minPrice(), query.maxPrice(),
+                PageRequest.ofSize(query.size() + 1));
+
+        boolean hasMore = products.size() > query.size();
+        List<ProductResponse> page = hasMore ? products.subList(0, query.size()) : products;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1).getId()) : null;
+
+        return CursorPage.<ProductResponse>builder()
+                .items(List.copyOf(page))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /** SHA-256 (truncado a 128 bits) del toString del valor, que Lombok arma con todos los campos de los DTOs. */
+    private static String etag(Object value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /** Valor cacheado con su ETag. */
+    public record Cached<T>(T value, String etag) {
+    }
+
+    private record PageQuery(Long afterId, int size, Double minPrice, Double maxPrice) {
+    }
+
+    private record ProductQuery(Long id) {
+    }
+}
@@ -0,0 +1,198 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import js.zubigaray.facturacion.dto.ProductResponse;
+import js.zubigaray.facturacion.dto.SearchPage;
+import js.zubigaray.facturacion.repository.StreamingQueryRepository;
+import js.zubigaray.facturacion.util.ProductSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de productos por nombre sobre un índice invertido en memoria (ProductSearchIndex),
+ * en lugar de LIKE '%nombre%', que obliga a MySQL a recorrer la tabla completa.
+ * <p>
+ * El índice se construye al terminar el arranque recorriendo los productos activos y se actualiza
+ * producto por producto cuando ProductService.save/softDelete confirma su transacción. Además se reconstruye
+ * periódicamente, lo que compacta los borrados y recoge cambios hechos fuera de la aplicación.
+ * Los cambios confirmados durante una reconstrucción se vuelven a aplicar sobre el índice nuevo antes del intercambio.
+ * Métricas: products.search.index.size y products.search.query.
+ */
+@Service
+@Slf4j
+public class ProductSearchService {
+
+    private final StreamingQueryRepository streamingQueryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer queryTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ProductSearchIndex index = new ProductSearchIndex();
+    // Cambios confirmados durante una reconstrucción (null si no hay ninguna en curso); un valor null es una baja
+    private Map<Long, ProductResponse> pendingChanges;
+
+    public ProductSearchService(
+            StreamingQueryRepository streamingQueryRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.streamingQueryRepository = streamingQueryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("products.search.index.size", this, ProductSearchService::size)
+                .description("Productos cargados en el índice de búsqueda")
+                .register(meterRegistry);
+        this.queryTimer = Timer.builder("products.search.query")
+                .description("Tiempo de las búsquedas de productos en el índice")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Busca productos activos cuyo nombre contenga todos los términos, ordenados por relevancia.
+     * @param query Términos de búsqueda (sin distinguir mayúsculas ni acentos).
+     * @param page Número de página, desde 0.
+     * @param size Cantidad máxima de productos de la página.
+     */
+    public SearchPage<ProductResponse> search(String query, int page, int size) {
+        ProductSearchIndex.SearchResult result;
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            result = index.search(query, Math.multiplyExact(page, size), size);
+        } finally {
+            lock.readLock().unlock();
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        return SearchPage.<ProductResponse>builder()
+                .items(result.items())
+                .page(page)
+                .size(size)
+                .totalHits(result.totalHits())
+                .build();
+    }
+
+    /** Agrega o actualiza el producto en el índice cuando se confirma la transacción en curso. */
+    public void indexAfterCommit(ProductResponse product) {
+        afterCommit(() -> apply(product.getId(), product));
+    }
+
+    /** Quita el producto del índice cuando se confirma la transacción en curso. */
+    public void removeAfterCommit(Long productId) {
+        afterCommit(() -> apply(productId, null));
+    }
+
+    /** Construye el índice al terminar el arranque, cuando el esquema ya está inicializado. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /** Reconstruye el índice desde los productos activos. */
+    @Scheduled(fixedDelayString = "${products.search.rebuild-interval:1h}",
+            initialDelayString = "${products.search.rebuild-interval:1h}")
+    public void rebuild() {
+        long start = System.nanoTime();
+
+        // 1. Desde este punto los cambios confirmados se registran también como pendientes
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // 2. Construir el índice nuevo recorriendo los productos activos, sin bloquear las búsquedas
+        ProductSearchIndex rebuilt = new ProductSearchIndex();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ProductResponse> products = streamingQueryRepository.streamActiveForSearch()) {
+                    products.forEach(product -> rebuilt.upsert(product.getId(), product.getName(), product.getPrice()));
+                }
+            });
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        // 3. Aplicar lo confirmado durante la construcción e intercambiar
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach((productId, product) -> applyTo(rebuilt, productId, product));
+            pendingChanges = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Índice de búsqueda de productos reconstruido: {} productos en {} ms",
+                rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void apply(Long productId, ProductResponse product) {
+        lock.writeLock().lock();
+        try {
+            applyTo(index, productId, product);
+            if (pendingChanges != null) {
+                pendingChanges.put(productId, product);
+            }
+            if (index.needsCompaction()) {
+                index = index.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void applyTo(ProductSearchIndex target, Long productId, ProductResponse product) {
+        if (product == null) {
+            target.remove(productId);
+        } else {
+            target.upsert(productId, product.getName(), product.getPrice());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
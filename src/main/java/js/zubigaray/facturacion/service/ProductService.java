@@ -1,6 +1,9 @@
 package js.zubigaray.facturacion.service;
 
+import js.zubigaray.facturacion.dto.ProductRequest;
+import js.zubigaray.facturacion.dto.ProductResponse;
 import js.zubigaray.facturacion.entity.ProductEntity;
+import js.zubigaray.facturacion.exception.custom_exceptions.ProductNotFoundException;
 import js.zubigaray.facturacion.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -14,6 +17,9 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final StockReservationService stockReservationService;
+    private final ProductCatalogService productCatalogService;
+    private final ProductSearchService productSearchService;
 
     // Obtener todos los productos activos
     @Transactional(readOnly = true)
@@ -31,13 +37,41 @@ public class ProductService {
     @Transactional
     public ProductEntity save(ProductEntity product) {
         // En una aplicación real, agregarías validaciones adicionales antes de guardar
-        return productRepository.save(product);
+        ProductEntity saved = productRepository.save(product);
+        // El stock pudo cambiar (reposición): se descarta el contador en memoria de reservas
+        stockReservationService.invalidate(saved.getId());
+        // El catálogo cacheado (y sus ETags) deja de ser válido
+        productCatalogService.invalidate();
+        // El índice de búsqueda se actualiza al confirmar (o se quita si el producto quedó inactivo)
+        if (saved.isActive()) {
+            productSearchService.indexAfterCommit(convertToDTO(saved));
+        } else {
+            productSearchService.removeAfterCommit(saved.getId());
+        }
+        return saved;
     }
 
-    // Búsqueda por nombre (parcial e insensible a mayúsculas)
-    @Transactional(readOnly = true)
-    public List<ProductEntity> findByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    // Crear un producto a partir del DTO del catálogo
+    @Transactional
+    public ProductResponse create(ProductRequest request) {
+        ProductEntity product = new ProductEntity();
+        applyRequest(product, request);
+        return convertToDTO(save(product));
+    }
+
+    // Actualizar nombre, precio y stock de un producto activo
+    @Transactional
+    public ProductResponse update(Long id, ProductRequest request) {
+        ProductEntity product = productRepository.findById(id)
+                .filter(ProductEntity::isActive)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
+        applyRequest(product, request);
+        return convertToDTO(save(product));
+    }
+
+    // Búsqueda por nombre en el índice en memoria (primera página, ordenada por relevancia)
+    public List<ProductResponse> findByName(String name) {
+        return productSearchService.search(name, 0, 100).getItems();
     }
 
     // Búsqueda por rango de precio
@@ -53,9 +87,23 @@ public class ProductService {
         if (productOpt.isPresent()) {
             ProductEntity product = productOpt.get();
             product.setActive(false);
-            productRepository.save(product);
+            save(product);
             return true;
         }
         return false;
     }
-}
\ No newline at end of file
+
+    private static void applyRequest(ProductEntity product, ProductRequest request) {
+        product.setName(request.getName());
+        product.setPrice(request.getPrice());
+        product.setStock(request.getStock());
+    }
+
+    private static ProductResponse convertToDTO(ProductEntity product) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package js.zubigaray.facturacion.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import js.zubigaray.facturacion.dto.RefreshTokenRecord;
+import js.zubigaray.facturacion.exception.custom_exceptions.RefreshTokenReuseException;
+import js.zubigaray.facturacion.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Registro de refresh tokens emitidos: tabla refresh_tokens (autoritativa) más un índice en memoria por jti
+ * con los tokens recientes, para que la rotación no tenga que leer la fila antes de marcarla como usada.
+ * <ul>
+ *     <li>Rotación: cada refresh marca su token como usado (UPDATE condicionado) y se emite otro en la misma familia.</li>
+ *     <li>Reutilización: presentar un token ya usado revoca toda su familia (la sesión) y responde 401.</li>
+ *     <li>Revocación de un token: DELETE por clave primaria.</li>
+ *     <li>Revocación de todas las sesiones de un usuario: una fila en session_revocations (revoked_before),
+ *     sin recorrer sus tokens. La comprueba el mismo UPDATE de la rotación, así que rige en todas las instancias
+ *     sin sincronizar estado en memoria.</li>
+ * </ul>
+ * Los tokens vencidos se borran por lotes con una tarea programada.
+ */
+@Component
+@Slf4j
+public class RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration refreshLifetime;
+    private final int sweepBatchSize;
+    private final Cache<String, RefreshTokenRecord> index;
+
+    public RefreshTokenStore(
+            RefreshTokenRepository refreshTokenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.refresh.expiration}") long refreshExpirationMillis,
+            @Value("${security.refresh-tokens.index.maximum-size:100000}") long indexMaximumSize,
+            @Value("${security.refresh-tokens.sweep.batch-size:1000}") int sweepBatchSize
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshLifetime = Duration.ofMillis(refreshExpirationMillis);
+        this.sweepBatchSize = sweepBatchSize;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexMaximumSize)
+                .expireAfter(Expiry.creating((String jti, RefreshTokenRecord token) ->
+                        Duration.between(Instant.now(), token.expiresAt())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "refreshTokens");
+    }
+
+    /**
+     * Registra un nuevo refresh token.
+     * @param familyId Familia (sesión) del token, o null para iniciar una sesión nueva (login/registro).
+     * @return El registro emitido; su jti debe incluirse en el JWT.
+     */
+    public RefreshTokenRecord issue(Long userId, String familyId) {
+        // Precisión de milisegundos, la misma que se guarda en la base de datos y en el JWT
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        RefreshTokenRecord token = new RefreshTokenRecord(
+                UUID.randomUUID().toString(),
+                userId,
+                familyId == null ? UUID.randomUUID().toString() : familyId,
+                now,
+                now.plus(refreshLifetime),
+                false
+        );
+        refreshTokenRepository.insert(token);
+        index.put(token.jti(), token);
+        return token;
+    }
+
+    /**
+     * Consume un refresh token para rotarlo. Debe ejecutarse en una transacción que no revierta
+     * RefreshTokenReuseException, para que la revocación de la familia se confirme.
+     * @return El registro consumido (usuario y familia para emitir el siguiente).
+     * @throws BadCredentialsException Si el token no existe, fue revocado o vencido.
+     * @throws RefreshTokenReuseException Si el token ya había sido rotado.
+     */
+    public RefreshTokenRecord consume(String jti) {
+        if (jti == null) {
+            throw new BadCredentialsException("Token de refresh inválido o expirado.");
+        }
+
+        // 1. Buscar el token en el índice en memoria y, si no está, en la tabla
+        RefreshTokenRecord token = index.getIfPresent(jti);
+        if (token == null) {
+            token = refreshTokenRepository.findByJti(jti)
+                    .orElseThrow(() -> new BadCredentialsException("Token de refresh inválido o expirado."));
+        }
+
+        // 2. Marcarlo como usado; si no se pudo, o ya estaba usado (reutilización) o fue revocado (el token o todas
+        //    las sesiones del usuario)
+        if (!refreshTokenRepository.markUsed(jti)) {
+            index.invalidate(jti);
+            boolean reused = token.used() || refreshTokenRepository.findByJti(jti).map(RefreshTokenRecord::used).orElse(false);
+            if (reused) {
+                int revoked = refreshTokenRepository.deleteFamily(token.familyId());
+                log.warn("Reutilización de refresh token {} del usuario {}: se revocan {} tokens de la sesión",
+                        jti, token.userId(), revoked);
+                throw new RefreshTokenReuseException("Token de refresh reutilizado: la sesión fue revocada.");
+            }
+            throw new BadCredentialsException("Token de refresh inválido o expirado.");
+        }
+
+        index.invalidate(jti);
+        return token;
+    }
+
+    /** Revoca un único refresh token (logout). */
+    public void revoke(String jti) {
+        refreshTokenRepository.delete(jti);
+        index.invalidate(jti);
+    }
+
+    /** Revoca todas las sesiones del usuario con una sola escritura, sin importar cuántos tokens tenga. */
+    public void revokeAll(Long userId) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS).plusMillis(1);
+        refreshTokenRepository.saveRevocation(userId, now);
+    }
+
+    /**
+     * Borra los tokens vencidos por lotes (cada lote es una sentencia independiente) y las revocaciones
+     * que ya no afectan a ningún token vigente.
+     */
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.sweep.interval:5m}",
+            initialDelayString = "${security.refresh-tokens.sweep.interval:5m}")
+    public void sweepExpired() {
+        Instant now = Instant.now();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpired(now, sweepBatchSize);
+            total += deleted;
+        } while (deleted == sweepBatchSize);
+
+        Instant threshold = now.minus(refreshLifetime);
+        refreshTokenRepository.deleteRevocationsBefore(threshold);
+
+        if (total > 0) {
+            log.info("Se eliminaron {} refresh tokens vencidos", total);
+        }
+    }
+}
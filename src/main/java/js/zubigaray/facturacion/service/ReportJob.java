@@ -0,0 +1,63 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.ReportJobResponse;
+import js.zubigaray.facturacion.dto.ReportJobStatus;
+import js.zubigaray.facturacion.dto.ReportType;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Estado de un reporte en generación. Lo escribe el hilo del executor y lo leen las peticiones de consulta.
+ */
+@Getter
+class ReportJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final ReportType type;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile ReportJobStatus status = ReportJobStatus.PENDING;
+    private volatile long rowsWritten;
+    private volatile LocalDateTime finishedAt;
+    private volatile Path file;
+    private volatile String error;
+
+    ReportJob(ReportType type) {
+        this.type = type;
+    }
+
+    void start() {
+        this.status = ReportJobStatus.RUNNING;
+    }
+
+    void progress(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    void complete(Path file, long rowsWritten) {
+        this.file = file;
+        this.rowsWritten = rowsWritten;
+        this.finishedAt = LocalDateTime.now();
+        this.status = ReportJobStatus.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = ReportJobStatus.FAILED;
+    }
+
+    ReportJobResponse toResponse() {
+        return ReportJobResponse.builder()
+                .id(id)
+                .type(type)
+                .status(status)
+                .rowsWritten(rowsWritten)
+                .createdAt(createdAt)
+                .finishedAt(finishedAt)
+                .error(error)
+                .build();
+    }
+}
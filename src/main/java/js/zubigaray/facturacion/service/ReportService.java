@@ -0,0 +1,104 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.ReportJobResponse;
+import js.zubigaray.facturacion.dto.ReportJobStatus;
+import js.zubigaray.facturacion.dto.ReportType;
+import js.zubigaray.facturacion.exception.custom_exceptions.ReportExecutorBusyException;
+import js.zubigaray.facturacion.exception.custom_exceptions.ReportJobNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de los reportes Excel solicitados. La generación corre en segundo plano (ExcelReportGenerator)
+ * y el cliente consulta el estado hasta poder descargar el archivo.
+ */
+@Service
+@Slf4j
+public class ReportService {
+
+    private final ExcelReportGenerator excelReportGenerator;
+    private final Duration retention;
+    private final Duration retryAfter;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    public ReportService(
+            ExcelReportGenerator excelReportGenerator,
+            @Value("${reports.retention:1h}") Duration retention,
+            @Value("${reports.executor.retry-after:30s}") Duration retryAfter
+    ) {
+        this.excelReportGenerator = excelReportGenerator;
+        this.retention = retention;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Encola la generación de un reporte y devuelve inmediatamente su estado inicial.
+     * @param type Tipo de reporte.
+     * @return Estado del job (PENDING).
+     * @throws ReportExecutorBusyException Si la cola de generación está llena (el cliente debe reintentar más tarde).
+     */
+    public ReportJobResponse submit(ReportType type) {
+        evictExpiredJobs();
+
+        ReportJob job = new ReportJob(type);
+        jobs.put(job.getId(), job);
+        try {
+            excelReportGenerator.generate(job);
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new ReportExecutorBusyException("Hay demasiados reportes en generación, intente más tarde.", retryAfter);
+        }
+        return job.toResponse();
+    }
+
+    /** Devuelve el estado actual de un reporte. */
+    public ReportJobResponse findById(String jobId) {
+        return getJob(jobId).toResponse();
+    }
+
+    /**
+     * Devuelve el archivo de un reporte terminado.
+     * @throws IllegalStateException Si el reporte todavía no está listo o falló.
+     */
+    public Path getFile(String jobId) {
+        ReportJob job = getJob(jobId);
+        if (job.getStatus() != ReportJobStatus.COMPLETED) {
+            throw new IllegalStateException("El reporte no está disponible (estado: " + job.getStatus() + ").");
+        }
+        return job.getFile();
+    }
+
+    private ReportJob getJob(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ReportJobNotFoundException("Reporte no encontrado: " + jobId);
+        }
+        return job;
+    }
+
+    /** Elimina los reportes terminados hace más tiempo que la retención configurada, junto con sus archivos. */
+    private void evictExpiredJobs() {
+        LocalDateTime limit = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getFinishedAt() != null && job.getFinishedAt().isBefore(limit);
+            if (expired && job.getFile() != null) {
+                try {
+                    Files.deleteIfExists(job.getFile());
+                } catch (IOException e) {
+                    log.warn("No se pudo eliminar el reporte {}: {}", job.getId(), e.getMessage());
+                }
+            }
+            return expired;
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.BillSaleLine;
+import js.zubigaray.facturacion.dto.DailyProductSales;
+import js.zubigaray.facturacion.dto.DailyUserSales;
+import js.zubigaray.facturacion.event.BillCreatedEvent;
+import js.zubigaray.facturacion.event.BillVoidedEvent;
+import js.zubigaray.facturacion.repository.OutboxRepository;
+import js.zubigaray.facturacion.repository.SalesAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Agregados diarios de ventas por producto y por usuario, mantenidos de forma incremental.
+ * Cada factura se suma al recibir BillCreatedEvent y se resta al recibir BillVoidedEvent (solo se publica si la
+ * factura seguía activa); así los reportes leen una fila por día (y producto o usuario) en lugar de recorrer
+ * las líneas de todas las facturas.
+ * <p>
+ * Los eventos llegan desde el outbox (OutboxDispatcher), fuera de la petición que crea o anula la factura:
+ * los agregados se actualizan en la misma transacción que borra el evento, por lo que cada factura se aplica
+ * una sola vez aunque la entrega se reintente. Los reportes pueden atrasarse respecto de la facturación lo que
+ * indique la métrica outbox.lag.
+ * <p>
+ * Los incrementos se agrupan por (día, producto) y (día, usuario) y se aplican ordenados,
+ * de modo que dos transacciones concurrentes bloquean las filas de los agregados siempre en el mismo orden.
+ */
+@Service
+@Slf4j
+public class SalesAggregateService {
+
+    // Eventos que modifican los agregados (el tipo registrado en el outbox es el nombre simple de la clase)
+    private static final List<String> BILL_EVENT_TYPES = List.of(
+            BillCreatedEvent.class.getSimpleName(), BillVoidedEvent.class.getSimpleName());
+
+    private final SalesAggregateRepository salesAggregateRepository;
+    private final OutboxRepository outboxRepository;
+    private final long maxRangeDays;
+
+    public SalesAggregateService(
+            SalesAggregateRepository salesAggregateRepository,
+            OutboxRepository outboxRepository,
+            @Value("${reports.sales.max-range-days:366}") long maxRangeDays
+    ) {
+        this.salesAggregateRepository = salesAggregateRepository;
+        this.outboxRepository = outboxRepository;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    /** Suma la factura a los agregados. Se ejecuta en la transacción de entrega del outbox. */
+    @EventListener
+    public void onBillCreated(BillCreatedEvent event) {
+        apply(event.billId(), 1);
+    }
+
+    /** Resta la factura anulada de los agregados. Se ejecuta en la transacción de entrega del outbox. */
+    @EventListener
+    public void onBillVoided(BillVoidedEvent event) {
+        apply(event.billId(), -1);
+    }
+
+    /**
+     * Ventas diarias por producto entre dos fechas inclusivas.
+     * @param productId Producto (null para todos).
+     */
+    @Transactional(readOnly = true)
+    public List<DailyProductSales> findProductSales(Long productId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return productId == null
+                ? salesAggregateRepository.findProductSales(from, to)
+                : salesAggregateRepository.findProductSales(productId, from, to);
+    }
+
+    /**
+     * Facturación diaria por usuario entre dos fechas inclusivas.
+     * @param userId Usuario (null para todos).
+     */
+    @Transactional(readOnly = true)
+    public List<DailyUserSales> findUserSales(Long userId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return userId == null
+                ? salesAggregateRepository.findUserSales(from, to)
+                : salesAggregateRepository.findUserSales(userId, from, to);
+    }
+
+    /**
+     * Recalcula los agregados desde las facturas activas, incluidas las archivadas (carga inicial o corrección).
+     * Los eventos de facturas que quedan en el outbox ya están reflejados en las facturas que se recorren:
+     * se bloquean antes del recálculo (ninguna instancia los entrega mientras tanto) y se descartan en la misma
+     * transacción, así ninguna factura se cuenta dos veces. Las facturas que se crean o anulan durante el
+     * recálculo esperan a que termine para registrar su evento, que se entrega después sobre el resultado.
+     * Recorre todas las líneas: conviene ejecutarlo con poca facturación, porque esas transacciones quedan en espera.
+     */
+    @Transactional
+    public void rebuild() {
+        long start = System.nanoTime();
+
+        // 1. Bloquear los eventos de facturas pendientes (y los nuevos, hasta el commit)
+        List<Long> pendingEvents = outboxRepository.lockAllByType(BILL_EVENT_TYPES);
+
+        // 2. Recalcular desde las facturas
+        salesAggregateRepository.rebuild();
+
+        // 3. Descartar los eventos bloqueados: su efecto ya está incluido en el recálculo
+        outboxRepository.deleteAll(pendingEvents);
+
+        log.info("Agregados diarios de ventas recalculados en {} ms ({} eventos pendientes descartados)",
+                (System.nanoTime() - start) / 1_000_000, pendingEvents.size());
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new IllegalArgumentException("Date range must not exceed " + maxRangeDays + " days");
+        }
+    }
+
+    /** Aplica las líneas de la factura (leídas de la base de datos) con el signo indicado. */
+    private void apply(Long billId, int sign) {
+        List<BillSaleLine> lines = salesAggregateRepository.findBillLines(billId);
+        if (lines.isEmpty()) {
+            log.warn("Factura {} inexistente: no se actualizan los agregados", billId);
+            return;
+        }
+
+        Deltas deltas = new Deltas();
+        BillSaleLine bill = lines.get(0);
+        LocalDate date = bill.dateTime().toLocalDate();
+        for (BillSaleLine line : lines) {
+            // Cada factura tiene una sola línea por producto
+            if (line.productId() != null) {
+                deltas.addLine(date, line.productId(), sign * line.quantity(), sign * line.subtotal(), sign);
+            }
+        }
+        deltas.addBill(date, bill.userId(), sign * bill.total(), sign);
+
+        List<Object[]> productRows = new ArrayList<>(deltas.products.size());
+        deltas.products.forEach((key, delta) -> productRows.add(new Object[]{
+                Date.valueOf(key.date()), key.id(), delta.quantity, delta.revenue, delta.bills}));
+        List<Object[]> userRows = new ArrayList<>(deltas.users.size());
+        deltas.users.forEach((key, delta) -> userRows.add(new Object[]{
+                Date.valueOf(key.date()), key.id(), delta.bills, delta.revenue}));
+
+        // Siempre productos y luego usuarios, cada uno ordenado por (día, ID)
+        salesAggregateRepository.applyProductDeltas(productRows);
+        salesAggregateRepository.applyUserDeltas(userRows);
+    }
+
+    /** Incrementos de una factura agrupados por (día, producto) y (día, usuario). */
+    private static final class Deltas {
+        private final SortedMap<DayKey, Delta> products = new TreeMap<>();
+        private final SortedMap<DayKey, Delta> users = new TreeMap<>();
+
+        private void addLine(LocalDate date, Long productId, long quantity, double revenue, int bills) {
+            Delta delta = products.computeIfAbsent(new DayKey(date, productId), key -> new Delta());
+            delta.quantity += quantity;
+            delta.revenue += revenue;
+            delta.bills += bills;
+        }
+
+        private void addBill(LocalDate date, Long userId, double revenue, int bills) {
+            Delta delta = users.computeIfAbsent(new DayKey(date, userId), key -> new Delta());
+            delta.revenue += revenue;
+            delta.bills += bills;
+        }
+    }
+
+    private static final class Delta {
+        private long quantity;
+        private double revenue;
+        private long bills;
+    }
+
+    private record DayKey(LocalDate date, long id) implements Comparable<DayKey> {
+
+        @Override
+        public int compareTo(DayKey other) {
+            int byDate = date.compareTo(other.date);
+            return byDate != 0 ? byDate : Long.compare(id, other.id);
+        }
+    }
+}
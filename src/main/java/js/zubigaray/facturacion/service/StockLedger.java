@@ -0,0 +1,90 @@
+package js.zubigaray.facturacion.service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Contador en memoria del stock disponible por producto, usado como filtro previo a la base de datos.
+ * Las reservas concurrentes de un mismo producto se agregan con CAS sobre un único contador, de modo que
+ * un producto agotado se rechaza sin tocar MySQL. La base de datos sigue siendo la fuente de verdad:
+ * el contador solo puede sobreestimar el stock real (nunca subestimarlo), y se descarta cuando MySQL
+ * rechaza una reserva, cuando el producto se modifica o cuando vence su TTL.
+ */
+class StockLedger {
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    // Locks por franjas para que muchas peticiones sobre un producto frío no lo carguen todas a la vez
+    private final Object[] loadLocks;
+    private final ToLongFunction<Long> stockLoader;
+    private final LongSupplier clock;
+    private final long ttlNanos;
+
+    StockLedger(ToLongFunction<Long> stockLoader, Duration ttl, int stripes, LongSupplier clock) {
+        this.stockLoader = stockLoader;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.loadLocks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    /** Intenta descontar la cantidad del contador del producto. Devuelve false si no alcanza el stock conocido. */
+    boolean tryAcquire(Long productId, long quantity) {
+        AtomicLong available = counter(productId).available;
+        long current;
+        do {
+            current = available.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    /** Devuelve al contador una cantidad reservada previamente (rollback o compensación). */
+    void release(Long productId, long quantity) {
+        Counter counter = counters.get(productId);
+        if (counter != null) {
+            counter.available.addAndGet(quantity);
+        }
+    }
+
+    /** Descarta el contador para que la próxima reserva lo vuelva a leer de la base de datos. */
+    void invalidate(Long productId) {
+        counters.remove(productId);
+    }
+
+    private Counter counter(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter != null && !counter.isExpired()) {
+            return counter;
+        }
+
+        synchronized (loadLocks[Math.floorMod(productId.hashCode(), loadLocks.length)]) {
+            counter = counters.get(productId);
+            if (counter == null || counter.isExpired()) {
+                counter = new Counter(stockLoader.applyAsLong(productId), clock.getAsLong() + ttlNanos);
+                counters.put(productId, counter);
+            }
+            return counter;
+        }
+    }
+
+    private final class Counter {
+        private final AtomicLong available;
+        private final long expiresAt;
+
+        private Counter(long available, long expiresAt) {
+            this.available = new AtomicLong(available);
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return clock.getAsLong() - expiresAt >= 0;
+        }
+    }
+}
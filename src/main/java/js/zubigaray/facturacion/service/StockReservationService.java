@@ -0,0 +1,130 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.exception.custom_exceptions.InsufficientStockException;
+import js.zubigaray.facturacion.repository.ProductStockRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reserva de stock con decrementos atómicos condicionados en la base de datos (UPDATE ... WHERE stock >= :qty).
+ * No usa locks pesimistas ni el dirty checking de ProductEntity, por lo que dos compras concurrentes del mismo
+ * producto nunca venden más unidades de las disponibles y tampoco se serializan en la aplicación.
+ * Opcionalmente agrega las reservas en un contador en memoria por producto (StockLedger) para que los
+ * productos agotados se rechacen sin ir a MySQL durante picos de tráfico.
+ */
+@Service
+public class StockReservationService {
+
+    private static final int LEDGER_LOAD_STRIPES = 64;
+
+    private final ProductStockRepository stockRepository;
+    private final StockLedger ledger;
+
+    public StockReservationService(
+            // ProductRepository incluye el fragmento ProductStockRepository (su implementación también es un bean)
+            @Qualifier("productRepository") ProductStockRepository stockRepository,
+            @Value("${stock.reservation.ledger.enabled:false}") boolean ledgerEnabled,
+            @Value("${stock.reservation.ledger.ttl:30s}") Duration ledgerTtl
+    ) {
+        this.stockRepository = stockRepository;
+        this.ledger = ledgerEnabled
+                ? new StockLedger(stockRepository::findAvailableStock, ledgerTtl, LEDGER_LOAD_STRIPES, System::nanoTime)
+                : null;
+    }
+
+    /**
+     * Reserva todas las cantidades o ninguna.
+     * Si algún producto no tiene stock suficiente, se devuelve lo ya descontado y se lanza la excepción,
+     * de modo que la reserva es atómica incluso si el llamador decide no hacer rollback.
+     * Dentro de una transacción, el contador en memoria se restituye si la transacción no confirma.
+     * @param quantities Cantidad a reservar por ID de producto (ordenadas por ID).
+     * @throws InsufficientStockException Si algún producto no tiene stock suficiente o está inactivo.
+     */
+    public void reserve(SortedMap<Long, Long> quantities) {
+        // 1. Filtro en memoria: rechaza sin ir a la base de datos si el stock conocido no alcanza
+        if (ledger != null) {
+            acquireFromLedger(quantities);
+        }
+
+        // 2. Decremento atómico y condicionado en la base de datos (fuente de verdad)
+        int[] updated = stockRepository.decrementStock(quantities);
+
+        Long rejectedProductId = null;
+        SortedMap<Long, Long> applied = new TreeMap<>();
+        int i = 0;
+        for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+            if (updated[i++] == 0) {
+                if (rejectedProductId == null) {
+                    rejectedProductId = entry.getKey();
+                }
+            } else {
+                applied.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (rejectedProductId != null) {
+            // 3. Compensar los productos que sí se descontaron y descartar el contador desactualizado
+            if (!applied.isEmpty()) {
+                stockRepository.incrementStock(applied);
+            }
+            if (ledger != null) {
+                releaseToLedger(quantities);
+                ledger.invalidate(rejectedProductId);
+            }
+            throw new InsufficientStockException(rejectedProductId);
+        }
+
+        // 4. Si la transacción termina en rollback, MySQL revierte el UPDATE y el contador debe acompañarlo
+        if (ledger != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        releaseToLedger(quantities);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Descarta la información en memoria de un producto (ej. tras reponer stock o desactivarlo). */
+    public void invalidate(Long productId) {
+        if (ledger == null) {
+            return;
+        }
+        ledger.invalidate(productId);
+
+        // Se vuelve a descartar al confirmar, por si otra reserva releyó el stock antes del commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ledger.invalidate(productId);
+                }
+            });
+        }
+    }
+
+    private void acquireFromLedger(SortedMap<Long, Long> quantities) {
+        SortedMap<Long, Long> acquired = new TreeMap<>();
+        for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+            if (!ledger.tryAcquire(entry.getKey(), entry.getValue())) {
+                releaseToLedger(acquired);
+                throw new InsufficientStockException(entry.getKey());
+            }
+            acquired.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void releaseToLedger(SortedMap<Long, Long> quantities) {
+        quantities.forEach(ledger::release);
+    }
+}
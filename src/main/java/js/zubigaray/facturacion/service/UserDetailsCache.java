@@ -0,0 +1,61 @@
+package js.zubigaray.facturacion.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Caché de UserDetails por username para las peticiones autenticadas con JWT.
+ * Solo la usa JwtAuthenticationFilter: el login sigue yendo a la base de datos, y las entradas se guardan
+ * sin el hash de la contraseña (el AuthenticationManager borra las credenciales de los objetos que autentica).
+ * Las métricas de aciertos/fallos se publican en actuator como cache.gets{cache="userDetails"}.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final CustomUserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(
+            CustomUserDetailsService userDetailsService,
+            MeterRegistry meterRegistry,
+            @Value("${security.user-details-cache.maximum-size:10000}") long maximumSize,
+            @Value("${security.user-details-cache.ttl:5m}") Duration ttl
+    ) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Devuelve los UserDetails del usuario, consultando la base de datos solo si no están en caché.
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException Si el usuario no existe.
+     */
+    public UserDetails get(String username) {
+        return cache.get(username, this::loadWithoutPassword);
+    }
+
+    /** Invalida la entrada de un usuario (ej. al crearlo o cambiar sus roles). */
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    /** Invalida toda la caché. */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private UserDetails loadWithoutPassword(String username) {
+        return userDetailsService.loadAuthenticatedUser(username).withoutPassword();
+    }
+}
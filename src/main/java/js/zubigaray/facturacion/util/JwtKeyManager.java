@@ -0,0 +1,133 @@
+package js.zubigaray.facturacion.util;
+
+import js.zubigaray.facturacion.repository.JwtSigningKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Carga las claves de firma desde jwt_signing_keys en el JwtKeyRing y las rota.
+ * La clave siguiente se genera como pendiente un "publish delay" antes de que la activa cumpla rotation-interval:
+ * se publica en el JWKS pero no firma hasta que los verificadores pudieron verla (max-age del JWKS más
+ * reload-interval, lo que tardan las demás instancias en cargarla). Las claves reemplazadas se conservan durante
+ * "retention" (debe cubrir la vida del refresh token) para seguir verificando los tokens que firmaron.
+ * La recarga periódica y una elección determinista de la clave activa hacen que todas las instancias converjan
+ * a las mismas claves, aunque varias generen una pendiente a la vez.
+ */
+@Component
+@Slf4j
+public class JwtKeyManager {
+
+    private final JwtKeyRing keyRing;
+    private final JwtSigningKeyRepository signingKeyRepository;
+    private final String algorithm;
+    private final Duration rotationInterval;
+    private final Duration retention;
+    /** Tiempo que una clave nueva se publica antes de firmar con ella. */
+    private final Duration publishDelay;
+
+    public JwtKeyManager(
+            JwtKeyRing keyRing,
+            JwtSigningKeyRepository signingKeyRepository,
+            @Value("${security.jwt.signing.algorithm:RS256}") String algorithm,
+            @Value("${security.jwt.signing.rotation-interval:30d}") Duration rotationInterval,
+            @Value("${security.jwt.signing.retention:8d}") Duration retention,
+            @Value("${security.jwt.signing.reload-interval:1m}") Duration reloadInterval
+    ) {
+        this.keyRing = keyRing;
+        this.signingKeyRepository = signingKeyRepository;
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.retention = retention;
+        this.publishDelay = JwtKeyRing.JWKS_MAX_AGE.plus(reloadInterval);
+        keyRing.setMissingKeyHandler(this::reload);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Recarga las claves, genera la siguiente como pendiente si corresponde rotar y elimina las retiradas hace más
+     * de "retention".
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.signing.reload-interval:1m}",
+            initialDelayString = "${security.jwt.signing.reload-interval:1m}")
+    public synchronized void reload() {
+        Instant now = Instant.now();
+        // 1. Claves persistidas, de la más nueva a la más antigua
+        List<SigningKey> keys = signingKeyRepository.findAll();
+
+        // 2. Sin claves del algoritmo configurado todavía no hay tokens que verificar: se firma con una nueva
+        if (keys.stream().noneMatch(key -> key.algorithm().equals(algorithm))) {
+            SigningKey key = generate();
+            keys.addFirst(key);
+            log.info("Nueva clave de firma JWT {} ({})", key.kid(), algorithm);
+        }
+
+        // 3. Elegir la clave activa y, si se acerca su rotación y no hay una más nueva, publicar la siguiente
+        SigningKey active = selectActive(keys, now);
+        boolean hasSuccessor = keys.stream()
+                .anyMatch(key -> key.algorithm().equals(algorithm) && key.createdAt().isAfter(active.createdAt()));
+        if (!hasSuccessor && !active.createdAt().plus(rotationInterval).minus(publishDelay).isAfter(now)) {
+            SigningKey pending = generate();
+            keys.addFirst(pending);
+            log.info("Nueva clave de firma JWT {} ({}) pendiente: firmará a partir de {}",
+                    pending.kid(), algorithm, pending.createdAt().plus(publishDelay));
+        }
+
+        // 4. Eliminar las claves reemplazadas hace más de "retention" (sus tokens ya vencieron). Una clave deja de
+        //    firmar cuando cumple rotation-interval y la siguiente ya está publicada
+        int activeIndex = keys.indexOf(active);
+        for (int i = keys.size() - 1; i > activeIndex; i--) {
+            SigningKey key = keys.get(i);
+            Instant rotatedAt = key.createdAt().plus(rotationInterval);
+            Instant successorPublishedAt = keys.get(i - 1).createdAt().plus(publishDelay);
+            Instant retiredAt = rotatedAt.isAfter(successorPublishedAt) ? rotatedAt : successorPublishedAt;
+            if (retiredAt.plus(retention).isBefore(now)) {
+                signingKeyRepository.delete(key.kid());
+                keys.remove(i);
+                log.info("Clave de firma JWT {} eliminada", key.kid());
+            }
+        }
+
+        keyRing.replaceKeys(keys, active);
+    }
+
+    /**
+     * Clave con la que se firman los tokens nuevos: la más antigua de las ya publicadas que no cumplió
+     * rotation-interval o, si todas lo cumplieron, la publicada más nueva (hasta que se publique la siguiente).
+     * Sin claves publicadas (primer arranque) es la más antigua del algoritmo. Solo depende de las claves
+     * persistidas, así que todas las instancias eligen la misma aunque varias hayan generado una pendiente.
+     */
+    private SigningKey selectActive(List<SigningKey> keys, Instant now) {
+        // De la más nueva a la más antigua
+        List<SigningKey> candidates = keys.stream()
+                .filter(key -> key.algorithm().equals(algorithm))
+                .toList();
+        List<SigningKey> published = candidates.stream()
+                .filter(key -> !key.createdAt().plus(publishDelay).isAfter(now))
+                .toList();
+        if (published.isEmpty()) {
+            return candidates.getLast();
+        }
+        return published.reversed().stream()
+                .filter(key -> key.createdAt().plus(rotationInterval).isAfter(now))
+                .findFirst()
+                .orElse(published.getFirst());
+    }
+
+    private SigningKey generate() {
+        SigningKey key = SigningKey.generate(algorithm);
+        signingKeyRepository.insert(key);
+        return key;
+    }
+}
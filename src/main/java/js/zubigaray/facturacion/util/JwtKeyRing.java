@@ -0,0 +1,215 @@
+package js.zubigaray.facturacion.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.crypto.SecretKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conjunto de claves de firma de JWT en memoria: la clave activa (con la que se firman los tokens nuevos),
+ * un parser ya construido por cada kid (las claves anteriores siguen verificando hasta que se retiran)
+ * y el documento JWKS con las claves públicas.
+ * Las claves las carga y rota JwtKeyManager; cada cambio reemplaza el estado completo de forma atómica.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    /** Tiempo que los verificadores pueden cachear el JWKS: una clave nueva se publica al menos así antes de firmar. */
+    public static final Duration JWKS_MAX_AGE = Duration.ofMinutes(5);
+
+    private static final JsonMapper HEADER_MAPPER = new JsonMapper();
+    /** Intervalo mínimo entre recargas disparadas por un kid desconocido (evita recargar con tokens falsificados). */
+    private static final long MISSING_KEY_RELOAD_INTERVAL_MILLIS = 5_000;
+
+    private final JwtParser legacyParser;
+    /** Solo se aceptan tokens HMAC sin kid emitidos antes de este instante... */
+    private final Instant legacyCutover;
+    /** ...y solo hasta este otro: el corte más la vida máxima de un token (acceso o refresh). */
+    private final Instant legacyAcceptedUntil;
+    private final AtomicLong lastMissingKeyReload = new AtomicLong();
+    private volatile KeySet keySet = new KeySet(null, Map.of(), Map.of("keys", List.of()));
+    private volatile Runnable missingKeyHandler = () -> { };
+
+    /**
+     * @param secret Secreto HMAC anterior a las claves con kid (Base64).
+     * @param acceptLegacyHmac Si se aceptan tokens sin kid firmados con ese secreto (transición hasta que venzan).
+     * @param legacyCutover Instante ISO-8601 del cambio a claves con kid; obligatorio si se aceptan tokens HMAC.
+     * @param accessExpirationMillis Vida del token de acceso.
+     * @param refreshExpirationMillis Vida del refresh token.
+     */
+    public JwtKeyRing(
+            @Value("${jwt.secret:}") String secret,
+            @Value("${security.jwt.signing.accept-legacy-hmac:false}") boolean acceptLegacyHmac,
+            @Value("${security.jwt.signing.legacy-hmac-cutover:}") String legacyCutover,
+            @Value("${jwt.expiration}") long accessExpirationMillis,
+            @Value("${jwt.refresh.expiration}") long refreshExpirationMillis
+    ) {
+        if (acceptLegacyHmac && !secret.isBlank()) {
+            if (legacyCutover.isBlank()) {
+                throw new IllegalStateException(
+                        "security.jwt.signing.legacy-hmac-cutover is required when accept-legacy-hmac is enabled");
+            }
+            SecretKey legacyKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+            this.legacyParser = Jwts.parser().verifyWith(legacyKey).build();
+            this.legacyCutover = Instant.parse(legacyCutover);
+            this.legacyAcceptedUntil = this.legacyCutover.plusMillis(Math.max(accessExpirationMillis, refreshExpirationMillis));
+            log.info("Accepting legacy HMAC tokens issued before {} until {}", this.legacyCutover, this.legacyAcceptedUntil);
+        } else {
+            this.legacyParser = null;
+            this.legacyCutover = null;
+            this.legacyAcceptedUntil = null;
+        }
+    }
+
+    /**
+     * Reemplaza las claves conocidas y precalcula un parser por kid y el JWKS.
+     * @param keys Claves vigentes (incluye las ya rotadas que todavía pueden verificar tokens).
+     * @param active Clave con la que se firman los tokens nuevos.
+     */
+    public void replaceKeys(List<SigningKey> keys, SigningKey active) {
+        Map<String, JwtParser> parsers = new HashMap<>();
+        List<Jwk<?>> publicKeys = new ArrayList<>();
+        for (SigningKey key : keys) {
+            parsers.put(key.kid(), buildParser(key));
+            if (key.isAsymmetric()) {
+                publicKeys.add(toJwk(key));
+            }
+        }
+        this.keySet = new KeySet(active, Map.copyOf(parsers), Map.of("keys", List.copyOf(publicKeys)));
+    }
+
+    /** Define cómo recargar las claves cuando falta la activa o aparece un kid desconocido. */
+    public void setMissingKeyHandler(Runnable missingKeyHandler) {
+        this.missingKeyHandler = missingKeyHandler;
+    }
+
+    /** Clave con la que se firman los tokens nuevos. */
+    public SigningKey activeKey() {
+        SigningKey active = keySet.active();
+        if (active == null) {
+            missingKeyHandler.run();
+            active = keySet.active();
+            if (active == null) {
+                throw new IllegalStateException("No JWT signing key available");
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Verifica el token (firma y expiración) con el parser precalculado para el kid de su header.
+     * @throws JwtException Si el token es inválido, no tiene un kid conocido o es un token HMAC sin kid
+     *         fuera de la transición (emitido después del corte, o ya vencida la ventana de aceptación).
+     */
+    public Claims verify(String token) {
+        String kid = readKid(token);
+        if (kid == null) {
+            return verifyLegacy(token);
+        }
+        return parserFor(kid).parseSignedClaims(token).getPayload();
+    }
+
+    /** Documento JWKS ({"keys": [...]}) con las claves públicas vigentes. */
+    public Map<String, Object> jwks() {
+        return keySet.jwks();
+    }
+
+    /**
+     * Un token sin kid solo es válido si se emitió antes del corte: con el secreto HMAC todavía configurado,
+     * un token firmado después no puede provenir de esta aplicación. Vencida la vida máxima de los tokens
+     * emitidos antes del corte, la transición termina sola aunque accept-legacy-hmac siga activo.
+     */
+    private Claims verifyLegacy(String token) {
+        if (legacyParser == null || Instant.now().isAfter(legacyAcceptedUntil)) {
+            throw new MalformedJwtException("JWT without kid header");
+        }
+        Claims claims = legacyParser.parseSignedClaims(token).getPayload();
+        if (claims.getIssuedAt() == null || !claims.getIssuedAt().toInstant().isBefore(legacyCutover)) {
+            throw new JwtException("Legacy HMAC JWT issued after the cutover");
+        }
+        return claims;
+    }
+
+    /** Devuelve el parser precalculado para el kid, recargando las claves si es desconocido. */
+    private JwtParser parserFor(String kid) {
+        JwtParser parser = keySet.parsers().get(kid);
+        if (parser == null && reloadAllowed()) {
+            // Puede ser una clave recién rotada por otra instancia
+            missingKeyHandler.run();
+            parser = keySet.parsers().get(kid);
+        }
+        if (parser == null) {
+            throw new JwtException("Unknown JWT signing key: " + kid);
+        }
+        return parser;
+    }
+
+    private boolean reloadAllowed() {
+        long now = System.currentTimeMillis();
+        long last = lastMissingKeyReload.get();
+        return now - last >= MISSING_KEY_RELOAD_INTERVAL_MILLIS && lastMissingKeyReload.compareAndSet(last, now);
+    }
+
+    private static JwtParser buildParser(SigningKey key) {
+        if (key.verificationKey() instanceof SecretKey secretKey) {
+            return Jwts.parser().verifyWith(secretKey).build();
+        }
+        return Jwts.parser().verifyWith((PublicKey) key.verificationKey()).build();
+    }
+
+    private static Jwk<?> toJwk(SigningKey key) {
+        if (key.verificationKey() instanceof RSAPublicKey rsaPublicKey) {
+            return Jwks.builder().key(rsaPublicKey)
+                    .id(key.kid())
+                    .algorithm(key.algorithm())
+                    .publicKeyUse("sig")
+                    .build();
+        }
+        return Jwks.builder().octetKey((PublicKey) key.verificationKey())
+                .id(key.kid())
+                .algorithm(key.algorithm())
+                .publicKeyUse("sig")
+                .build();
+    }
+
+    /** Lee el kid del header sin verificar la firma (solo para elegir el parser). */
+    private static String readKid(String token) {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd <= 0) {
+            throw new MalformedJwtException("Malformed JWT");
+        }
+        try {
+            JsonNode kid = HEADER_MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, headerEnd))).get("kid");
+            return kid == null || kid.isNull() ? null : kid.asString();
+        } catch (JacksonException | IllegalArgumentException ex) {
+            throw new MalformedJwtException("Malformed JWT header", ex);
+        }
+    }
+
+    private record KeySet(SigningKey active, Map<String, JwtParser> parsers, Map<String, Object> jwks) {
+    }
+}
@@ -2,14 +2,13 @@ package js.zubigaray.facturacion.util;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import js.zubigaray.facturacion.dto.RefreshTokenRecord;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -18,15 +17,24 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
     // Se obtienen las propiedades de configuración (application.properties o .yml)
-    @Value("${jwt.secret}")
-    private String secret;
     @Value("${jwt.expiration}")
     private Long expiration; // Tiempo de vida del token de acceso (ej. 15 minutos)
-    @Value("${jwt.refresh.expiration}")
-    private Long refreshExpiration; // Tiempo de vida del refresh token (ej. 7 días)
+    // El tiempo de vida del refresh token (jwt.refresh.expiration) lo aplica el RefreshTokenStore
+
+    // Claves de firma (activa y anteriores) con un parser ya construido por kid
+    private final JwtKeyRing keyRing;
+
+    /**
+     * Verifica la firma y la expiración del token con un único parseo y devuelve sus claims.
+     * @throws io.jsonwebtoken.JwtException Si el token es inválido, está mal formado o expiró.
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.from(extractAllClaims(token));
+    }
 
     /** Extrae el nombre de usuario (subject) del token. */
     public String extractUsername(String token) {
@@ -46,23 +54,14 @@ public class JwtUtil {
 
     /** Parsea y obtiene todas las claims del token. */
     private Claims extractAllClaims(String token) {
-        // Parsea y verifica el token usando la clave secreta
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    /** Verifica si el token ha expirado. */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        // Parsea y verifica el token con el parser precalculado para el kid de su header
+        return keyRing.verify(token);
     }
 
-    /** Valida que el token no esté expirado y pertenezca al usuario proporcionado. */
+    /** Valida que el token no esté expirado y pertenezca al usuario proporcionado (un único parseo). */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final VerifiedToken verifiedToken = verify(token);
+        return (verifiedToken.subject().equals(userDetails.getUsername()) && !verifiedToken.isExpired());
     }
 
     /** Genera un token de acceso incluyendo los roles del usuario. */
@@ -79,33 +78,38 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername(), expiration);
     }
 
-    /** Genera un refresh token (mayor expiración) */
-    public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+    /**
+     * Genera un refresh token para un registro del RefreshTokenStore: el jti, la emisión y la expiración
+     * del JWT son los mismos que los de la fila persistida.
+     */
+    public String generateRefreshToken(UserDetails userDetails, RefreshTokenRecord token) {
+        SigningKey signingKey = keyRing.activeKey();
+        return Jwts.builder()
+                .header().keyId(signingKey.kid()).and() // Indica con qué clave verificar
+                .claim("type", "refresh")
+                .id(token.jti()) // Identifica el token en el store (rotación y revocación)
+                .subject(userDetails.getUsername())
+                .issuedAt(Date.from(token.issuedAt()))
+                .expiration(Date.from(token.expiresAt()))
+                .signWith(signingKey.signingKey(), signingKey.signatureAlgorithm())
+                .compact();
     }
 
     /** Método privado para construir el JWT. */
     private String createToken(Map<String, Object> claims, String subject, Long validity) {
+        SigningKey signingKey = keyRing.activeKey();
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and() // Indica con qué clave verificar
                 .claims(claims) // Carga las claims (incluyendo roles)
                 .subject(subject) // Establece el username como sujeto
                 .issuedAt(new Date(System.currentTimeMillis())) // Fecha de emisión
                 .expiration(new Date(System.currentTimeMillis() + validity)) // Fecha de expiración
-                .signWith(getSignKey()) // Firma el token con la clave secreta
+                .signWith(signingKey.signingKey(), signingKey.signatureAlgorithm()) // Firma con la clave activa (RS256/EdDSA)
                 .compact();
     }
 
-    /** Obtiene la clave secreta HmacSha a partir de la clave Base64 codificada. */
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     /** Extrae los roles del token (útil si se necesita re-autenticar o verificar roles sin ir a la DB). */
     public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
-        return (List<String>) claims.get("roles");
+        return verify(token).roles();
     }
 }
\ No newline at end of file
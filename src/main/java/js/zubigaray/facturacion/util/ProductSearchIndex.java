@@ -0,0 +1,391 @@
+package js.zubigaray.facturacion.util;
+
+import js.zubigaray.facturacion.dto.ProductResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre el nombre de los productos, basado en n-gramas.
+ * Cada palabra del nombre (normalizado: minúsculas, sin acentos ni signos) aporta sus trigramas y sus prefijos
+ * de 1 y 2 caracteres; cada n-grama apunta a la lista ordenada de documentos que lo contienen.
+ * <p>
+ * Una búsqueda intersecta, por cada término de la consulta, la lista más selectiva de sus n-gramas, verifica
+ * los candidatos y los ordena por relevancia: nombre exacto, nombre que empieza por la consulta, frase completa
+ * y palabras que empiezan por cada término. Las palabras de 1 o 2 caracteres de la consulta se buscan como
+ * prefijo de palabra; las de 3 o más, como subcadena (igual que LIKE '%x%').
+ * <p>
+ * Las modificaciones agregan un documento nuevo y marcan el anterior como borrado; compact() reconstruye
+ * las listas cuando los borrados acumulados lo justifican. No es thread-safe: ProductSearchService sincroniza el acceso.
+ */
+public final class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private long[] productIds = new long[1024];
+    private String[] names = new String[1024];
+    private double[] prices = new double[1024];
+    private int documentCount;
+
+    // Nombres normalizados, contiguos en memoria: el del documento d ocupa [nameOffsets[d], nameOffsets[d + 1])
+    private char[] text = new char[32 * 1024];
+    private int[] nameOffsets = new int[1025];
+
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private final Map<Long, Integer> documentByProduct = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    /** Agrega o reemplaza un producto. */
+    public void upsert(long productId, String name, double price) {
+        remove(productId);
+
+        int document = documentCount++;
+        ensureCapacity(documentCount);
+        String normalized = normalize(name);
+        productIds[document] = productId;
+        names[document] = name;
+        prices[document] = price;
+        appendText(document, normalized);
+        documentByProduct.put(productId, document);
+
+        for (String word : words(normalized)) {
+            addPosting(prefixGram(word, 1), document);
+            if (word.length() >= 2) {
+                addPosting(prefixGram(word, 2), document);
+            }
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                addPosting(trigram(word, i), document);
+            }
+        }
+    }
+
+    /** Quita un producto (por ejemplo, al darlo de baja). */
+    public void remove(long productId) {
+        Integer document = documentByProduct.remove(productId);
+        if (document != null) {
+            deleted.set(document);
+            deletedCount++;
+        }
+    }
+
+    /** Cantidad de productos indexados. */
+    public int size() {
+        return documentByProduct.size();
+    }
+
+    /** Indica si conviene compactar (más de un 20% de documentos borrados). */
+    public boolean needsCompaction() {
+        return deletedCount > 1024 && deletedCount * 5 > documentCount;
+    }
+
+    /** Devuelve un índice nuevo solo con los documentos vigentes. */
+    public ProductSearchIndex compact() {
+        ProductSearchIndex compacted = new ProductSearchIndex();
+        for (int document = 0; document < documentCount; document++) {
+            if (!deleted.get(document)) {
+                compacted.upsert(productIds[document], names[document], prices[document]);
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Busca productos cuyo nombre contenga todos los términos de la consulta, ordenados por relevancia.
+     * @param offset Resultados a saltear (paginación).
+     * @param limit Cantidad máxima de resultados.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> terms = words(normalize(query));
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        // 1. Por cada término, la lista más corta entre las de sus n-gramas; si alguno no existe no hay resultados.
+        //    El resto de los trigramas no se intersecta: la verificación del paso 3 compara el texto completo
+        List<IntList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            IntList shortest = null;
+            if (term.length() < 3) {
+                shortest = postings.get(prefixGram(term, term.length()));
+            } else {
+                for (int i = 0; i + 3 <= term.length(); i++) {
+                    IntList list = postings.get(trigram(term, i));
+                    if (list == null) {
+                        return new SearchResult(List.of(), 0);
+                    }
+                    if (shortest == null || list.size < shortest.size) {
+                        shortest = list;
+                    }
+                }
+            }
+            if (shortest == null) {
+                return new SearchResult(List.of(), 0);
+            }
+            lists.add(shortest);
+        }
+
+        // 2. Intersección empezando por la lista más corta
+        lists.sort(Comparator.comparingInt(IntList::size));
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < lists.size() && candidateCount > 0; i++) {
+            candidateCount = intersect(candidates, candidateCount, lists.get(i));
+        }
+
+        // 3. Verificar (los trigramas no garantizan la subcadena completa), puntuar y conservar solo
+        //    los offset + limit mejores en un heap, sin ordenar todas las coincidencias
+        char[] phrase = String.join(" ", terms).toCharArray();
+        char[][] termChars = new char[terms.size()][];
+        for (int i = 0; i < termChars.length; i++) {
+            termChars[i] = terms.get(i).toCharArray();
+        }
+        TopKeys top = new TopKeys((int) Math.min((long) offset + limit, candidateCount));
+        int matches = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int document = candidates[i];
+            if (deleted.get(document)) {
+                continue;
+            }
+            int score = score(nameOffsets[document], nameOffsets[document + 1], phrase, termChars);
+            if (score > 0) {
+                matches++;
+                // Clave ordenable en un long: puntaje descendente, luego nombres más cortos, luego documento
+                long scoreRank = 0x7FFF - Math.min(score, 0x7FFF);
+                long lengthRank = Math.min(nameOffsets[document + 1] - nameOffsets[document], 0xFFFF);
+                top.offer((scoreRank << 48) | (lengthRank << 32) | document);
+            }
+        }
+
+        // 4. Ordenar los mejores y devolver la página pedida
+        long[] best = top.sorted();
+        List<ProductResponse> items = new ArrayList<>(Math.max(0, best.length - offset));
+        for (int i = offset; i < best.length; i++) {
+            int document = (int) best[i];
+            items.add(new ProductResponse(productIds[document], names[document], prices[document]));
+        }
+        return new SearchResult(items, matches);
+    }
+
+    /** Resultado de una búsqueda: la página pedida y el total de coincidencias. */
+    public record SearchResult(List<ProductResponse> items, int totalHits) {
+    }
+
+    /** Puntaje del nombre en [from, to) para los términos y la frase de la consulta (0 si no coincide). */
+    private int score(int from, int to, char[] phrase, char[][] terms) {
+        int score = 1;
+        for (char[] term : terms) {
+            int position = indexOf(from, to, term, from);
+            if (position < 0) {
+                return 0;
+            }
+            boolean wordStart = position == from || text[position - 1] == ' ';
+            while (!wordStart && (position = indexOf(from, to, term, position + 1)) >= 0) {
+                wordStart = text[position - 1] == ' ';
+            }
+            // Los términos de 1 o 2 caracteres solo valen como inicio de palabra
+            if (term.length < 3 && !wordStart) {
+                return 0;
+            }
+            score += wordStart ? 10 : 5;
+        }
+
+        int position = indexOf(from, to, phrase, from);
+        if (position == from) {
+            score += to - from == phrase.length ? 100 : 50;
+        } else if (position > from) {
+            score += 20;
+        }
+        return score;
+    }
+
+    /** Primera aparición de pattern en el nombre [from, to) a partir de start, o -1. */
+    private int indexOf(int from, int to, char[] pattern, int start) {
+        char first = pattern[0];
+        int last = to - pattern.length;
+        search:
+        for (int i = start; i <= last; i++) {
+            if (text[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < pattern.length; j++) {
+                if (text[i + j] != pattern[j]) {
+                    continue search;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Intersecta in-place los candidatos (ordenados) con una lista de documentos (ordenada).
+     * Avanza sobre la lista con búsqueda exponencial: el costo depende de los candidatos, no del largo de la lista.
+     */
+    private static int intersect(int[] candidates, int candidateCount, IntList list) {
+        int kept = 0;
+        int position = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int candidate = candidates[i];
+            position = gallop(list.values, position, list.size, candidate);
+            if (position == list.size) {
+                break;
+            }
+            if (list.values[position] == candidate) {
+                candidates[kept++] = candidate;
+            }
+        }
+        return kept;
+    }
+
+    /** Primera posición en [from, to) cuyo valor es mayor o igual a key (to si no hay ninguna). */
+    private static int gallop(int[] values, int from, int to, int key) {
+        if (from >= to || values[from] >= key) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < to && values[high] < key) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int found = Arrays.binarySearch(values, low + 1, Math.min(high, to), key);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private void addPosting(long gram, int document) {
+        IntList list = postings.computeIfAbsent(gram, key -> new IntList());
+        // Los documentos se agregan en orden creciente: basta con mirar el último para evitar duplicados
+        if (list.size == 0 || list.values[list.size - 1] != document) {
+            list.add(document);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > productIds.length) {
+            int newLength = Math.max(capacity, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, newLength);
+            names = Arrays.copyOf(names, newLength);
+            prices = Arrays.copyOf(prices, newLength);
+            nameOffsets = Arrays.copyOf(nameOffsets, newLength + 1);
+        }
+    }
+
+    private void appendText(int document, String normalized) {
+        int start = nameOffsets[document];
+        int end = start + normalized.length();
+        if (end > text.length) {
+            text = Arrays.copyOf(text, Math.max(end, text.length * 2));
+        }
+        normalized.getChars(0, normalized.length(), text, start);
+        nameOffsets[document + 1] = end;
+    }
+
+    /** Minúsculas, sin acentos, y cualquier carácter que no sea letra o dígito como separador. */
+    static String normalize(String text) {
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static List<String> words(String normalized) {
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return List.of(normalized.split(" "));
+    }
+
+    // Claves de 64 bits: 2 bits de tipo (prefijo de 1, de 2 o trigrama) y hasta tres caracteres de 16 bits
+    private static long prefixGram(String word, int length) {
+        return length == 1
+                ? (1L << 48) | word.charAt(0)
+                : (2L << 48) | ((long) word.charAt(0) << 16) | word.charAt(1);
+    }
+
+    private static long trigram(String word, int start) {
+        return (3L << 48) | ((long) word.charAt(start) << 32) | ((long) word.charAt(start + 1) << 16) | word.charAt(start + 2);
+    }
+
+    /** Las k claves menores (mejores) vistas, en un max-heap de longs primitivos. */
+    private static final class TopKeys {
+        private final long[] heap;
+        private int size;
+
+        private TopKeys(int capacity) {
+            this.heap = new long[capacity];
+        }
+
+        private void offer(long key) {
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(size++);
+            } else if (size > 0 && key < heap[0]) {
+                heap[0] = key;
+                siftDown(0);
+            }
+        }
+
+        private long[] sorted() {
+            long[] keys = Arrays.copyOf(heap, size);
+            Arrays.sort(keys);
+            return keys;
+        }
+
+        private void siftUp(int index) {
+            long key = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] >= key) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = key;
+        }
+
+        private void siftDown(int index) {
+            long key = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (key >= heap[child]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = key;
+        }
+    }
+
+    /** Lista de enteros primitivos (evita un Integer por cada posting). */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+}
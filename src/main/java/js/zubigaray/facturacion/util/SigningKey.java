@@ -0,0 +1,84 @@
+package js.zubigaray.facturacion.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Clave de firma de JWT identificada por su kid.
+ * Para RS256 y EdDSA se firma con la clave privada y se verifica con la pública (que se publica en el JWKS);
+ * para HS256 ambas son el mismo secreto.
+ */
+public record SigningKey(
+        String kid,
+        String algorithm,
+        Key signingKey,
+        Key verificationKey,
+        Instant createdAt
+) {
+
+    /**
+     * Genera una clave nueva para el algoritmo JWS indicado.
+     * @param algorithm HS256, RS256 (RSA 2048) o EdDSA (Ed25519).
+     */
+    public static SigningKey generate(String algorithm) {
+        String kid = UUID.randomUUID().toString();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        return switch (algorithm) {
+            case "HS256" -> {
+                SecretKey key = Jwts.SIG.HS256.key().build();
+                yield new SigningKey(kid, algorithm, key, key, now);
+            }
+            case "RS256" -> {
+                KeyPair keyPair = Jwts.SIG.RS256.keyPair().build();
+                yield new SigningKey(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic(), now);
+            }
+            case "EdDSA" -> {
+                KeyPair keyPair = Jwks.CRV.Ed25519.keyPair().build();
+                yield new SigningKey(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic(), now);
+            }
+            default -> throw new IllegalArgumentException("Unsupported JWT signing algorithm: " + algorithm);
+        };
+    }
+
+    /** Reconstruye una clave persistida (PKCS#8 / X.509 para claves asimétricas, bytes crudos para HMAC). */
+    public static SigningKey fromEncoded(String kid, String algorithm, String keyAlgorithm,
+                                         byte[] encodedSigningKey, byte[] encodedVerificationKey, Instant createdAt) {
+        if ("HS256".equals(algorithm)) {
+            SecretKey key = new SecretKeySpec(encodedSigningKey, keyAlgorithm);
+            return new SigningKey(kid, algorithm, key, key, createdAt);
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
+            return new SigningKey(kid, algorithm,
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(encodedSigningKey)),
+                    keyFactory.generatePublic(new X509EncodedKeySpec(encodedVerificationKey)),
+                    createdAt);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot decode JWT signing key " + kid, ex);
+        }
+    }
+
+    /** Algoritmo de firma de jjwt correspondiente. */
+    @SuppressWarnings("unchecked")
+    public SecureDigestAlgorithm<Key, Key> signatureAlgorithm() {
+        return (SecureDigestAlgorithm<Key, Key>) Jwts.SIG.get().forKey(algorithm);
+    }
+
+    /** Indica si la clave de verificación es pública (y por lo tanto se puede publicar en el JWKS). */
+    public boolean isAsymmetric() {
+        return !(verificationKey instanceof SecretKey);
+    }
+}
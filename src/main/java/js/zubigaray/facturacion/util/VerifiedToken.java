@@ -0,0 +1,42 @@
+package js.zubigaray.facturacion.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Token JWT cuya firma y expiración ya fueron verificadas, con las claims que usa la aplicación.
+ * Se obtiene con un único parseo (JwtUtil.verify) y evita volver a verificar el token para leer cada claim.
+ */
+public record VerifiedToken(
+        String subject,
+        String id,
+        String type,
+        List<String> roles,
+        Date issuedAt,
+        Date expiration
+) {
+
+    @SuppressWarnings("unchecked")
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                claims.get("type", String.class),
+                (List<String>) claims.get("roles"),
+                claims.getIssuedAt(),
+                claims.getExpiration()
+        );
+    }
+
+    /** Indica si el token ya expiró. */
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    /** Indica si es un refresh token (claim type = refresh). */
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+}
@@ -0,0 +1,97 @@
+package js.zubigaray.facturacion.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de tokens ya verificados, indexada por el SHA-256 del token (nunca se guarda el token en claro).
+ * Un cliente que reutiliza su token de acceso evita la verificación HMAC y el parseo JSON de las claims
+ * en cada petición. Cada entrada vence exactamente cuando vence el token, por lo que un token expirado
+ * nunca se acepta desde la caché; el tamaño máximo acota la memoria usada.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final Cache<ByteBuffer, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            JwtUtil jwtUtil,
+            MeterRegistry meterRegistry,
+            @Value("${security.jwt.verified-token-cache.enabled:true}") boolean enabled,
+            @Value("${security.jwt.verified-token-cache.maximum-size:50000}") long maximumSize
+    ) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    /**
+     * Devuelve el token verificado, desde la caché si ya se verificó antes y sigue vigente.
+     * @throws io.jsonwebtoken.JwtException Si el token es inválido, está mal formado o expiró.
+     */
+    public VerifiedToken verify(String token) {
+        if (!enabled) {
+            return jwtUtil.verify(token);
+        }
+
+        ByteBuffer key = digest(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        VerifiedToken verified = jwtUtil.verify(token);
+        cache.put(key, verified);
+        return verified;
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /** Expira cada entrada en el instante de expiración del token. */
+    private static final class TokenExpiry implements Expiry<ByteBuffer, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, VerifiedToken token, long currentTime) {
+            if (token.expiration() == null) {
+                return 0;
+            }
+            long remainingMillis = token.expiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
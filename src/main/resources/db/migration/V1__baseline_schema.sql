@@ -0,0 +1,56 @@
+-- Esquema base: el que generaba Hibernate a partir de las entidades antes de usar migraciones.
+-- Las bases existentes no lo ejecutan: se marcan en esta versión (spring.flyway.baseline-on-migrate)
+-- y reciben los cambios desde V2.
+
+CREATE TABLE roles (
+    id   BIGINT       NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    full_name VARCHAR(255) NOT NULL,
+    username  VARCHAR(255) NOT NULL,
+    email     VARCHAR(255) NOT NULL,
+    password  VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE products (
+    id     BIGINT       NOT NULL AUTO_INCREMENT,
+    name   VARCHAR(255) NOT NULL,
+    price  DOUBLE       NOT NULL,
+    stock  BIGINT       NOT NULL,
+    active BIT          NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE bills (
+    id        BIGINT      NOT NULL AUTO_INCREMENT,
+    date_time DATETIME(6) NOT NULL,
+    active    BIT         NOT NULL,
+    user_id   BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bills_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE bill_user (
+    bill_id    BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity   BIGINT NOT NULL,
+    PRIMARY KEY (bill_id, product_id),
+    CONSTRAINT fk_bill_user_bill FOREIGN KEY (bill_id) REFERENCES bills (id),
+    CONSTRAINT fk_bill_user_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
@@ -0,0 +1,137 @@
+-- Objetos agregados sobre el esquema base: importes persistidos, generador de IDs de facturas, índices keyset,
+-- sesiones y claves JWT, agregados diarios de ventas, outbox e idempotencia. Incluye la carga de los datos
+-- existentes, de modo que una base marcada en V1 queda igual que una creada desde cero.
+
+-- 1. Importes persistidos de facturas y líneas
+ALTER TABLE bills ADD COLUMN total DOUBLE NOT NULL DEFAULT 0;
+ALTER TABLE bill_user ADD COLUMN unit_price DOUBLE NOT NULL DEFAULT 0;
+ALTER TABLE bill_user ADD COLUMN subtotal DOUBLE NOT NULL DEFAULT 0;
+
+-- Las facturas existentes no guardaban el precio facturado: se aproxima con el precio actual del producto
+-- (antes el total se calculaba así en cada lectura, por lo que los importes mostrados no cambian)
+UPDATE bill_user
+SET unit_price = (SELECT p.price FROM products p WHERE p.id = bill_user.product_id),
+    subtotal = quantity * (SELECT p.price FROM products p WHERE p.id = bill_user.product_id);
+
+UPDATE bills
+SET total = (SELECT COALESCE(SUM(d.subtotal), 0) FROM bill_user d WHERE d.bill_id = bills.id);
+
+-- 2. Los IDs de facturas los reserva Hibernate por bloques en id_generators. La columna conserva AUTO_INCREMENT
+-- (MySQL no permite quitarlo mientras la FK de bill_user la referencia), pero los INSERT siempre traen un ID explícito
+
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT,
+    PRIMARY KEY (sequence_name)
+);
+
+-- El optimizador pooled toma el valor guardado como el tope de un bloque de allocationSize (50) IDs, no como
+-- el próximo ID: guardar MAX(id) + 1 repetiría IDs existentes. Con MAX(id) + 50 el primer bloque empieza
+-- después de la última factura
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'bills', COALESCE(MAX(id), 0) + 50 FROM bills;
+
+-- 3. Listados keyset de facturas y del catálogo
+CREATE INDEX idx_bills_active_date_time_id ON bills (active, date_time, id);
+CREATE INDEX idx_bills_user_active_id ON bills (user_id, active, id);
+CREATE INDEX idx_products_active_id ON products (active, id);
+
+-- 4. Sesiones y claves de firma JWT
+CREATE TABLE refresh_tokens (
+    jti        VARCHAR(36) NOT NULL,
+    user_id    BIGINT      NOT NULL,
+    family_id  VARCHAR(36) NOT NULL,
+    issued_at  DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    used       BIT         NOT NULL,
+    PRIMARY KEY (jti)
+);
+
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens (family_id);
+
+CREATE TABLE session_revocations (
+    user_id        BIGINT      NOT NULL,
+    revoked_before DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE access_token_revocations (
+    username   VARCHAR(50) NOT NULL,
+    revoked_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (username)
+);
+
+CREATE INDEX idx_access_token_revocations_expires_at ON access_token_revocations (expires_at);
+
+CREATE TABLE jwt_signing_keys (
+    kid              VARCHAR(36) NOT NULL,
+    algorithm        VARCHAR(10) NOT NULL,
+    key_algorithm    VARCHAR(20) NOT NULL,
+    signing_key      LONGBLOB    NOT NULL,
+    verification_key LONGBLOB    NOT NULL,
+    created_at       DATETIME(6) NOT NULL,
+    PRIMARY KEY (kid)
+);
+
+-- 5. Agregados diarios de ventas
+CREATE TABLE daily_product_sales (
+    sales_date DATE   NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity   BIGINT NOT NULL,
+    revenue    DOUBLE NOT NULL,
+    bill_count BIGINT NOT NULL,
+    PRIMARY KEY (sales_date, product_id)
+);
+
+CREATE INDEX idx_daily_product_sales_product_date ON daily_product_sales (product_id, sales_date);
+
+CREATE TABLE daily_user_sales (
+    sales_date DATE   NOT NULL,
+    user_id    BIGINT NOT NULL,
+    bill_count BIGINT NOT NULL,
+    revenue    DOUBLE NOT NULL,
+    PRIMARY KEY (sales_date, user_id)
+);
+
+CREATE INDEX idx_daily_user_sales_user_date ON daily_user_sales (user_id, sales_date);
+
+-- 6. Outbox de eventos de dominio e Idempotency-Key de la creación de facturas
+CREATE TABLE outbox_events (
+    id           BIGINT        NOT NULL AUTO_INCREMENT,
+    event_type   VARCHAR(100)  NOT NULL,
+    aggregate_id BIGINT,
+    payload      VARCHAR(4000) NOT NULL,
+    created_at   DATETIME(6)   NOT NULL,
+    available_at DATETIME(6)   NOT NULL,
+    attempts     INTEGER       NOT NULL,
+    last_error   VARCHAR(500),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    VARCHAR(64)  NOT NULL,
+    bill_id         BIGINT       NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    expires_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
+
+-- 7. Carga inicial de los agregados desde las facturas activas existentes
+INSERT INTO daily_product_sales (sales_date, product_id, quantity, revenue, bill_count)
+SELECT CAST(b.date_time AS DATE), d.product_id, SUM(d.quantity), SUM(d.subtotal), COUNT(*)
+FROM bill_user d
+JOIN bills b ON b.id = d.bill_id
+WHERE b.active = true
+GROUP BY CAST(b.date_time AS DATE), d.product_id;
+
+INSERT INTO daily_user_sales (sales_date, user_id, bill_count, revenue)
+SELECT CAST(b.date_time AS DATE), b.user_id, COUNT(*), SUM(b.total)
+FROM bills b
+WHERE b.active = true
+AND b.user_id IS NOT NULL
+GROUP BY CAST(b.date_time AS DATE), b.user_id;
@@ -0,0 +1,5 @@
+-- Índices compuestos que empiezan por el flag de soft delete: las consultas de productos activos
+-- (rango de precio, listado por nombre) recorren solo el tramo active = 1 en lugar de toda la tabla.
+-- En MySQL 8 CREATE INDEX se ejecuta en línea (INPLACE) sin bloquear las escrituras.
+CREATE INDEX idx_products_active_price ON products (active, price);
+CREATE INDEX idx_products_active_name ON products (active, name);
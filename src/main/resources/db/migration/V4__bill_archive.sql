@@ -0,0 +1,25 @@
+-- Archivo de facturas: BillArchiveService mueve aquí las facturas anuladas y las más antiguas que la retención,
+-- por bloques, para que bills y bill_user solo crezcan con la facturación reciente.
+-- Sin claves foráneas: archivar no bloquea filas de users ni products.
+
+CREATE TABLE bills_archive (
+    id          BIGINT      NOT NULL,
+    date_time   DATETIME(6) NOT NULL,
+    active      BIT         NOT NULL,
+    total       DOUBLE      NOT NULL,
+    user_id     BIGINT,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE bill_user_archive (
+    bill_id    BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity   BIGINT NOT NULL,
+    unit_price DOUBLE NOT NULL,
+    subtotal   DOUBLE NOT NULL,
+    PRIMARY KEY (bill_id, product_id)
+);
+
+-- Eventos pendientes de una factura: el archivado espera a que se entreguen
+CREATE INDEX idx_outbox_events_aggregate_id ON outbox_events (aggregate_id);
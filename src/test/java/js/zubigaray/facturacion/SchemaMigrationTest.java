@@ -0,0 +1,75 @@
+package js.zubigaray.facturacion;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Migra una base con datos del esquema base (V1, el que generaba Hibernate) hasta la última versión y comprueba
+ * la carga de los datos existentes. Cada test usa su propia base H2 en modo MySQL.
+ */
+class SchemaMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createDatabase() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migrate("1");
+
+        jdbcTemplate.update("INSERT INTO users (id, full_name, username, email, password) VALUES (1, 'Ana', 'ana', 'ana@mail.com', 'x')");
+        jdbcTemplate.update("INSERT INTO products (id, name, price, stock, active) VALUES (1, 'Yerba', 2.5, 10, true)");
+        jdbcTemplate.update("INSERT INTO products (id, name, price, stock, active) VALUES (2, 'Mate', 10, 10, true)");
+        jdbcTemplate.update("INSERT INTO bills (id, date_time, active, user_id) VALUES (7, TIMESTAMP '2025-03-01 10:00:00', true, 1)");
+        jdbcTemplate.update("INSERT INTO bills (id, date_time, active, user_id) VALUES (120, TIMESTAMP '2025-03-01 12:00:00', true, 1)");
+        jdbcTemplate.update("INSERT INTO bill_user (bill_id, product_id, quantity) VALUES (7, 1, 4)");
+        jdbcTemplate.update("INSERT INTO bill_user (bill_id, product_id, quantity) VALUES (7, 2, 1)");
+        jdbcTemplate.update("INSERT INTO bill_user (bill_id, product_id, quantity) VALUES (120, 2, 3)");
+
+        migrate(null);
+    }
+
+    @Test
+    void existingBillsGetTheirAmountsFromCurrentProductPrices() {
+        assertEquals(20.0, jdbcTemplate.queryForObject("SELECT total FROM bills WHERE id = 7", Double.class));
+        assertEquals(30.0, jdbcTemplate.queryForObject("SELECT total FROM bills WHERE id = 120", Double.class));
+        assertEquals(2.5, jdbcTemplate.queryForObject(
+                "SELECT unit_price FROM bill_user WHERE bill_id = 7 AND product_id = 1", Double.class));
+        assertEquals(10.0, jdbcTemplate.queryForObject(
+                "SELECT subtotal FROM bill_user WHERE bill_id = 7 AND product_id = 1", Double.class));
+    }
+
+    @Test
+    void billIdGeneratorStartsAboveExistingBills() {
+        // Tope del primer bloque pooled (allocationSize = 50): los IDs generados quedan por encima de 120
+        assertEquals(170L, jdbcTemplate.queryForObject(
+                "SELECT next_val FROM id_generators WHERE sequence_name = 'bills'", Long.class));
+    }
+
+    @Test
+    void dailyAggregatesIncludeExistingBills() {
+        assertEquals(4L, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM daily_product_sales WHERE product_id = 2", Long.class));
+        assertEquals(2L, jdbcTemplate.queryForObject(
+                "SELECT bill_count FROM daily_user_sales WHERE user_id = 1", Long.class));
+        assertEquals(50.0, jdbcTemplate.queryForObject(
+                "SELECT revenue FROM daily_user_sales WHERE user_id = 1", Double.class));
+    }
+
+    private void migrate(String target) {
+        var configuration = Flyway.configure().dataSource(dataSource);
+        if (target != null) {
+            configuration.target(target);
+        }
+        configuration.load().migrate();
+    }
+}
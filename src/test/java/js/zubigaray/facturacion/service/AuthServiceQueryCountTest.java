@@ -0,0 +1,73 @@
+package js.zubigaray.facturacion.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import js.zubigaray.facturacion.dto.AuthRequest;
+import js.zubigaray.facturacion.dto.AuthResponse;
+import js.zubigaray.facturacion.dto.RegisterRequest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica con las estadísticas de Hibernate que login y refresh cargan el usuario con una sola consulta JPA.
+ * Las sentencias del RefreshTokenStore (INSERT/UPDATE por clave primaria vía JdbcTemplate) no se cuentan aquí.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class AuthServiceQueryCountTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void loginRunsASingleQuery() {
+        register("login-user", "Login User");
+
+        statistics.clear();
+        AuthResponse response = authService.login(new AuthRequest("login-user", "secret-password"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(response.getEmail()).isEqualTo("login-user@example.com");
+        assertThat(response.getFullName()).isEqualTo("Login User");
+        assertThat(response.getRoles()).containsExactly("USER");
+    }
+
+    @Test
+    void refreshRunsASingleQuery() {
+        AuthResponse registered = register("refresh-user", "Refresh User");
+
+        statistics.clear();
+        AuthResponse response = authService.refreshToken(registered.getRefreshToken());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(response.getUsername()).isEqualTo("refresh-user");
+        assertThat(response.getRoles()).isEqualTo(List.of("USER"));
+    }
+
+    private AuthResponse register(String username, String fullName) {
+        return authService.register(RegisterRequest.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .fullName(fullName)
+                .password("secret-password")
+                .build());
+    }
+}
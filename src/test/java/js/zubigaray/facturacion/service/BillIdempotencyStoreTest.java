@@ -0,0 +1,174 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import js.zubigaray.facturacion.dto.BillDetailRequest;
+import js.zubigaray.facturacion.dto.BillRequest;
+import js.zubigaray.facturacion.dto.BillResponse;
+import js.zubigaray.facturacion.exception.custom_exceptions.IdempotencyKeyBillGoneException;
+import js.zubigaray.facturacion.exception.custom_exceptions.IdempotencyKeyReuseException;
+import js.zubigaray.facturacion.exception.custom_exceptions.InsufficientStockException;
+import js.zubigaray.facturacion.repository.IdempotencyKeyRepository;
+import js.zubigaray.facturacion.repository.IdempotencyKeyRepository.StoredKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creación idempotente de facturas sin base de datos: BillService e IdempotencyKeyRepository son mocks y las
+ * transacciones no hacen nada. Cada test usa un store nuevo (sin claves en memoria).
+ */
+class BillIdempotencyStoreTest {
+
+    private static final String KEY = "pos-1-ticket-42";
+    private static final String STORED_KEY = "ana:" + KEY;
+
+    private BillService billService;
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    private BillIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        billService = mock(BillService.class);
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(idempotencyKeyRepository.find(anyString(), any())).thenReturn(Optional.empty());
+
+        store = new BillIdempotencyStore(billService, idempotencyKeyRepository, transactionManager,
+                new SimpleMeterRegistry(), Duration.ofHours(24), Duration.ofSeconds(5), 1000, 1000);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheRequestInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(billService.create(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return bill(1L);
+        });
+        when(billService.findResponse(1L)).thenReturn(Optional.of(bill(1L)));
+
+        CompletableFuture<BillIdempotencyStore.Result> first =
+                CompletableFuture.supplyAsync(() -> store.create("ana", KEY, request(2)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<BillIdempotencyStore.Result> duplicate =
+                CompletableFuture.supplyAsync(() -> store.create("ana", KEY, request(2)));
+
+        // El duplicado espera al original en lugar de crear otra factura
+        Thread.sleep(200);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).replayed()).isTrue();
+        assertThat(duplicate.get().bill().getId()).isEqualTo(1L);
+        verify(billService, times(1)).create(any());
+    }
+
+    @Test
+    void reusingAKeyWithADifferentRequestIsRejected() {
+        when(billService.create(any())).thenReturn(bill(1L));
+        store.create("ana", KEY, request(2));
+
+        assertThatThrownBy(() -> store.create("ana", KEY, request(3)))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        verify(billService, times(1)).create(any());
+    }
+
+    @Test
+    void reusingAStoredKeyWithADifferentRequestIsRejected() {
+        // Clave registrada por otra instancia (o antes de un reinicio) con otra petición
+        when(idempotencyKeyRepository.find(eq(STORED_KEY), any()))
+                .thenReturn(Optional.of(new StoredKey(BillIdempotencyStore.hash(request(3)), 1L)));
+
+        assertThatThrownBy(() -> store.create("ana", KEY, request(2)))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        verify(billService, times(0)).create(any());
+    }
+
+    @Test
+    void losingTheInsertRaceReturnsTheOtherInstancesBill() {
+        BillRequest request = request(2);
+        when(billService.create(any())).thenReturn(bill(2L));
+        doThrow(new DuplicateKeyException("idempotency_keys.PRIMARY"))
+                .when(idempotencyKeyRepository).insert(eq(STORED_KEY), anyString(), anyLong(), any(), any());
+        // Vacía antes de crear; después del rollback aparece la clave que registró la otra instancia
+        when(idempotencyKeyRepository.find(eq(STORED_KEY), any()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new StoredKey(BillIdempotencyStore.hash(request), 1L)));
+        when(billService.findResponse(1L)).thenReturn(Optional.of(bill(1L)));
+
+        BillIdempotencyStore.Result result = store.create("ana", KEY, request);
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.bill().getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void aFailedAttemptCanBeRetriedWithTheSameKey() {
+        when(billService.create(any()))
+                .thenThrow(new InsufficientStockException(1L))
+                .thenReturn(bill(1L));
+
+        assertThatThrownBy(() -> store.create("ana", KEY, request(2)))
+                .isInstanceOf(InsufficientStockException.class);
+        BillIdempotencyStore.Result retry = store.create("ana", KEY, request(2));
+
+        assertThat(retry.replayed()).isFalse();
+        assertThat(retry.bill().getId()).isEqualTo(1L);
+        verify(billService, times(2)).create(any());
+    }
+
+    @Test
+    void replayingAKeyWhoseBillWasVoidedIsGone() {
+        when(idempotencyKeyRepository.find(eq(STORED_KEY), any()))
+                .thenReturn(Optional.of(new StoredKey(BillIdempotencyStore.hash(request(2)), 1L)));
+        when(billService.findResponse(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> store.create("ana", KEY, request(2)))
+                .isInstanceOf(IdempotencyKeyBillGoneException.class);
+        verify(billService, times(0)).create(any());
+    }
+
+    @Test
+    void replayingFromMemoryAKeyWhoseBillWasVoidedIsGone() {
+        when(billService.create(any())).thenReturn(bill(1L));
+        store.create("ana", KEY, request(2));
+        // La factura se anuló después: la clave sigue en memoria, pero ya no se devuelve la original
+        when(billService.findResponse(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> store.create("ana", KEY, request(2)))
+                .isInstanceOf(IdempotencyKeyBillGoneException.class);
+        verify(billService, times(1)).create(any());
+    }
+
+    private static BillRequest request(long quantity) {
+        return new BillRequest(1L, List.of(new BillDetailRequest(1L, quantity)));
+    }
+
+    private static BillResponse bill(Long id) {
+        return BillResponse.builder().id(id).userId(1L).username("ana").total(10).build();
+    }
+}
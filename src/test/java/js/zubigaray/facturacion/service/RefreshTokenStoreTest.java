@@ -0,0 +1,77 @@
+package js.zubigaray.facturacion.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import js.zubigaray.facturacion.dto.RefreshTokenRecord;
+import js.zubigaray.facturacion.exception.custom_exceptions.RefreshTokenReuseException;
+import js.zubigaray.facturacion.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rotación de refresh tokens contra la base de datos: cada token sirve una sola vez, reutilizarlo revoca la sesión
+ * y revocar todas las sesiones de un usuario rige también en las instancias que no registraron la revocación.
+ * Cada test usa su propio usuario (refresh_tokens no tiene FK a users).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshTokenStoreTest {
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh.expiration}")
+    private long refreshExpirationMillis;
+
+    @Test
+    void rotationConsumesEachTokenOnceAndKeepsTheFamily() {
+        RefreshTokenRecord first = refreshTokenStore.issue(9001L, null);
+
+        RefreshTokenRecord consumed = refreshTokenStore.consume(first.jti());
+        RefreshTokenRecord second = refreshTokenStore.issue(consumed.userId(), consumed.familyId());
+
+        assertThat(consumed.userId()).isEqualTo(9001L);
+        assertThat(second.familyId()).isEqualTo(first.familyId());
+        assertThat(refreshTokenStore.consume(second.jti()).jti()).isEqualTo(second.jti());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeSession() {
+        RefreshTokenRecord first = refreshTokenStore.issue(9002L, null);
+        refreshTokenStore.consume(first.jti());
+        RefreshTokenRecord second = refreshTokenStore.issue(9002L, first.familyId());
+        RefreshTokenRecord otherSession = refreshTokenStore.issue(9002L, null);
+
+        assertThatThrownBy(() -> refreshTokenStore.consume(first.jti()))
+                .isInstanceOf(RefreshTokenReuseException.class);
+        // El token vigente de la misma sesión también queda revocado; las demás sesiones no
+        assertThatThrownBy(() -> refreshTokenStore.consume(second.jti()))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(refreshTokenStore.consume(otherSession.jti()).userId()).isEqualTo(9002L);
+    }
+
+    @Test
+    void revokingAllSessionsOnAnotherInstanceRejectsEarlierTokens() throws InterruptedException {
+        RefreshTokenStore otherInstance = new RefreshTokenStore(
+                refreshTokenRepository, new SimpleMeterRegistry(), refreshExpirationMillis, 1000, 1000);
+        // Token emitido (y en el índice en memoria) en esta instancia
+        RefreshTokenRecord revoked = refreshTokenStore.issue(9003L, null);
+
+        otherInstance.revokeAll(9003L);
+        Thread.sleep(5);
+        RefreshTokenRecord issuedAfter = refreshTokenStore.issue(9003L, null);
+
+        assertThatThrownBy(() -> refreshTokenStore.consume(revoked.jti()))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(refreshTokenStore.consume(issuedAfter.jti()).userId()).isEqualTo(9003L);
+    }
+}
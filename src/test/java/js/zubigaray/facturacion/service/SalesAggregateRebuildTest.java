@@ -0,0 +1,66 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.dto.BillDetailRequest;
+import js.zubigaray.facturacion.dto.DailyUserSales;
+import js.zubigaray.facturacion.dto.ProductRequest;
+import js.zubigaray.facturacion.dto.RegisterRequest;
+import js.zubigaray.facturacion.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un evento de factura que sigue en el outbox al recalcular los agregados no debe volver a sumarse después:
+ * la factura ya está incluida en el recálculo.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SalesAggregateRebuildTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private SalesAggregateService salesAggregateService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Test
+    void pendingBillEventsAreNotAppliedTwiceAfterARebuild() {
+        authService.register(RegisterRequest.builder()
+                .username("rebuild-user")
+                .email("rebuild-user@example.com")
+                .fullName("Rebuild User")
+                .password("secret-password")
+                .build());
+        Long userId = userRepository.findByUsername("rebuild-user").orElseThrow().getId();
+        Long productId = productService.create(new ProductRequest("Rebuild product", 5.0, 10L)).getId();
+
+        // El evento BillCreatedEvent queda en el outbox hasta que el despachador lo entregue
+        billService.createBill(userId, List.of(new BillDetailRequest(productId, 2L)));
+        salesAggregateService.rebuild();
+        outboxDispatcher.dispatch();
+
+        LocalDate today = LocalDate.now();
+        List<DailyUserSales> sales = salesAggregateService.findUserSales(userId, today, today);
+        assertThat(sales).hasSize(1);
+        assertThat(sales.get(0).billCount()).isEqualTo(1);
+        assertThat(sales.get(0).revenue()).isEqualTo(10.0);
+    }
+}
@@ -0,0 +1,157 @@
+package js.zubigaray.facturacion.service;
+
+import js.zubigaray.facturacion.exception.custom_exceptions.InsufficientStockException;
+import js.zubigaray.facturacion.repository.ProductStockRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockReservationServiceStressTest {
+
+    private static final int CONCURRENT_REQUESTS = 500;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void concurrentReservationsOfHotProductNeverOversell(boolean ledgerEnabled) throws Exception {
+        InMemoryStockRepository repository = new InMemoryStockRepository(Map.of(1L, 100L));
+        StockReservationService service = new StockReservationService(repository, ledgerEnabled, Duration.ofSeconds(30));
+
+        List<Boolean> results = runConcurrently(() -> {
+            SortedMap<Long, Long> order = new TreeMap<>(Map.of(1L, 1L));
+            return tryReserve(service, order);
+        });
+
+        long successes = results.stream().filter(Boolean::booleanValue).count();
+        assertEquals(100, successes);
+        assertEquals(0, repository.stock(1L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void concurrentMultiProductReservationsAreAllOrNothing(boolean ledgerEnabled) throws Exception {
+        Map<Long, Long> initialStock = Map.of(1L, 300L, 2L, 150L, 3L, 50L);
+        InMemoryStockRepository repository = new InMemoryStockRepository(initialStock);
+        StockReservationService service = new StockReservationService(repository, ledgerEnabled, Duration.ofSeconds(30));
+        Map<Long, AtomicLong> sold = new ConcurrentHashMap<>();
+
+        List<Boolean> results = runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            SortedMap<Long, Long> order = new TreeMap<>();
+            for (long productId = 1; productId <= 3; productId++) {
+                if (random.nextBoolean()) {
+                    order.put(productId, random.nextLong(1, 4));
+                }
+            }
+            if (order.isEmpty()) {
+                order.put(1L, 1L);
+            }
+
+            boolean reserved = tryReserve(service, order);
+            if (reserved) {
+                order.forEach((productId, quantity) ->
+                        sold.computeIfAbsent(productId, id -> new AtomicLong()).addAndGet(quantity));
+            }
+            return reserved;
+        });
+
+        assertTrue(results.contains(true));
+        initialStock.forEach((productId, initial) -> {
+            long remaining = repository.stock(productId);
+            long soldUnits = sold.getOrDefault(productId, new AtomicLong()).get();
+            assertTrue(remaining >= 0, "Stock negativo para el producto " + productId);
+            assertEquals(initial, remaining + soldUnits, "Unidades perdidas o duplicadas en el producto " + productId);
+        });
+    }
+
+    private static boolean tryReserve(StockReservationService service, SortedMap<Long, Long> order) {
+        try {
+            service.reserve(order);
+            return true;
+        } catch (InsufficientStockException ex) {
+            return false;
+        }
+    }
+
+    private static List<Boolean> runConcurrently(java.util.concurrent.Callable<Boolean> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(CONCURRENT_REQUESTS);
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            List<Boolean> results = new ArrayList<>(CONCURRENT_REQUESTS);
+            for (Future<Boolean> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Emula la semántica de UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ? fila a fila. */
+    private static final class InMemoryStockRepository implements ProductStockRepository {
+
+        private final Map<Long, AtomicLong> stock = new ConcurrentHashMap<>();
+
+        private InMemoryStockRepository(Map<Long, Long> initialStock) {
+            initialStock.forEach((productId, units) -> stock.put(productId, new AtomicLong(units)));
+        }
+
+        @Override
+        public int[] decrementStock(SortedMap<Long, Long> quantities) {
+            int[] updated = new int[quantities.size()];
+            int i = 0;
+            for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+                AtomicLong row = stock.get(entry.getKey());
+                long quantity = entry.getValue();
+                long current;
+                boolean applied;
+                do {
+                    current = row.get();
+                    applied = current >= quantity;
+                    Thread.yield();
+                } while (applied && !row.compareAndSet(current, current - quantity));
+                updated[i++] = applied ? 1 : 0;
+            }
+            return updated;
+        }
+
+        @Override
+        public void incrementStock(SortedMap<Long, Long> quantities) {
+            quantities.forEach((productId, quantity) -> stock.get(productId).addAndGet(quantity));
+        }
+
+        @Override
+        public long findAvailableStock(Long productId) {
+            return stock.get(productId).get();
+        }
+
+        private long stock(Long productId) {
+            return stock.get(productId).get();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package js.zubigaray.facturacion.util;
+
+import io.jsonwebtoken.security.Jwk;
+import js.zubigaray.facturacion.repository.JwtSigningKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rotación de claves de firma: la clave siguiente se publica en el JWKS antes de firmar con ella, y con varias
+ * pendientes (generadas por instancias distintas) todas las instancias eligen la misma.
+ */
+class JwtKeyManagerTest {
+
+    private static final Duration ROTATION = Duration.ofDays(30);
+    private static final Duration RETENTION = Duration.ofDays(8);
+    private static final Duration RELOAD = Duration.ofMinutes(1);
+    private static final Duration PUBLISH_DELAY = JwtKeyRing.JWKS_MAX_AGE.plus(RELOAD);
+
+    private final List<SigningKey> stored = new ArrayList<>();
+    private JwtKeyRing keyRing;
+    private JwtKeyManager keyManager;
+
+    @BeforeEach
+    void setUp() {
+        JwtSigningKeyRepository repository = mock(JwtSigningKeyRepository.class);
+        when(repository.findAll()).thenAnswer(invocation -> new ArrayList<>(stored.stream()
+                .sorted(Comparator.comparing(SigningKey::createdAt).reversed())
+                .toList()));
+        doAnswer(invocation -> stored.add(invocation.getArgument(0))).when(repository).insert(any());
+        doAnswer(invocation -> stored.removeIf(key -> key.kid().equals(invocation.getArgument(0))))
+                .when(repository).delete(anyString());
+
+        keyRing = new JwtKeyRing("", false, "", 900_000L, 604_800_000L);
+        keyManager = new JwtKeyManager(keyRing, repository, "EdDSA", ROTATION, RETENTION, RELOAD);
+    }
+
+    @Test
+    void firstKeySignsImmediately() {
+        keyManager.reload();
+
+        assertThat(stored).hasSize(1);
+        assertThat(keyRing.activeKey().kid()).isEqualTo(stored.get(0).kid());
+    }
+
+    @Test
+    void nextKeyIsPublishedBeforeItSigns() {
+        SigningKey current = key(Instant.now().minus(ROTATION).plus(Duration.ofMinutes(2)));
+        stored.add(current);
+
+        keyManager.reload();
+
+        // La siguiente ya está en el JWKS, pero se sigue firmando con la actual
+        assertThat(stored).hasSize(2);
+        assertThat(keyRing.activeKey().kid()).isEqualTo(current.kid());
+        assertThat(jwksKids()).containsExactlyInAnyOrder(current.kid(), pendingKid(current));
+    }
+
+    @Test
+    void rotatedKeyKeepsSigningUntilTheNextOneIsPublished() {
+        SigningKey current = key(Instant.now().minus(ROTATION).minus(Duration.ofMinutes(1)));
+        SigningKey pending = key(Instant.now().minus(Duration.ofMinutes(2)));
+        stored.addAll(List.of(current, pending));
+
+        keyManager.reload();
+
+        assertThat(keyRing.activeKey().kid()).isEqualTo(current.kid());
+        assertThat(stored).hasSize(2);
+    }
+
+    @Test
+    void oldestPublishedPendingKeySignsOnEveryInstance() {
+        SigningKey current = key(Instant.now().minus(ROTATION).minus(Duration.ofMinutes(1)));
+        // Dos instancias generaron la siguiente clave casi a la vez
+        SigningKey first = key(Instant.now().minus(PUBLISH_DELAY).minusSeconds(3));
+        SigningKey second = key(Instant.now().minus(PUBLISH_DELAY).minusSeconds(1));
+        stored.addAll(List.of(current, first, second));
+
+        keyManager.reload();
+
+        assertThat(keyRing.activeKey().kid()).isEqualTo(first.kid());
+        assertThat(stored).hasSize(3);
+    }
+
+    @Test
+    void replacedKeysAreDeletedAfterRetention() {
+        SigningKey expired = key(Instant.now().minus(ROTATION).minus(RETENTION).minus(Duration.ofDays(2)));
+        SigningKey retained = key(Instant.now().minus(ROTATION).minus(Duration.ofDays(1)));
+        SigningKey current = key(Instant.now().minus(Duration.ofDays(1)));
+        stored.addAll(List.of(expired, retained, current));
+
+        keyManager.reload();
+
+        assertThat(keyRing.activeKey().kid()).isEqualTo(current.kid());
+        assertThat(stored).extracting(SigningKey::kid).containsExactlyInAnyOrder(retained.kid(), current.kid());
+    }
+
+    private static SigningKey key(Instant createdAt) {
+        SigningKey key = SigningKey.generate("EdDSA");
+        return new SigningKey(key.kid(), key.algorithm(), key.signingKey(), key.verificationKey(), createdAt);
+    }
+
+    private String pendingKid(SigningKey current) {
+        return stored.stream().map(SigningKey::kid).filter(kid -> !kid.equals(current.kid())).findFirst().orElseThrow();
+    }
+
+    private List<String> jwksKids() {
+        List<?> keys = (List<?>) keyRing.jwks().get("keys");
+        return keys.stream().map(jwk -> ((Jwk<?>) jwk).getId()).toList();
+    }
+}
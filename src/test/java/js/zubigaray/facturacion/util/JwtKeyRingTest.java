@@ -0,0 +1,67 @@
+package js.zubigaray.facturacion.util;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Transición desde jwt.secret: solo se aceptan tokens HMAC sin kid emitidos antes del corte
+ * y mientras no venza la vida máxima de los tokens emitidos hasta entonces.
+ */
+class JwtKeyRingTest {
+
+    private static final String SECRET = "c2VjcmV0LWRlLXRlc3RzLXBhcmEtZmlybWFyLXRva2Vucy1qd3QtaHMyNTYtZmFjdHVyYWNpb24=";
+    private static final long ACCESS_MILLIS = Duration.ofMinutes(15).toMillis();
+    private static final long REFRESH_MILLIS = Duration.ofDays(7).toMillis();
+
+    @Test
+    void acceptsLegacyTokenIssuedBeforeTheCutover() {
+        Instant cutover = Instant.now().minus(Duration.ofMinutes(1));
+        JwtKeyRing keyRing = new JwtKeyRing(SECRET, true, cutover.toString(), ACCESS_MILLIS, REFRESH_MILLIS);
+
+        assertEquals("ana", keyRing.verify(legacyToken(cutover.minus(Duration.ofMinutes(5)))).getSubject());
+    }
+
+    @Test
+    void rejectsLegacyTokenIssuedAfterTheCutover() {
+        Instant cutover = Instant.now().minus(Duration.ofMinutes(1));
+        JwtKeyRing keyRing = new JwtKeyRing(SECRET, true, cutover.toString(), ACCESS_MILLIS, REFRESH_MILLIS);
+
+        assertThrows(JwtException.class, () -> keyRing.verify(legacyToken(Instant.now())));
+    }
+
+    @Test
+    void rejectsLegacyTokensOnceTheLongestLifetimeHasPassed() {
+        Instant cutover = Instant.now().minus(Duration.ofDays(8));
+        JwtKeyRing keyRing = new JwtKeyRing(SECRET, true, cutover.toString(), ACCESS_MILLIS, REFRESH_MILLIS);
+
+        // Firma válida y emitido antes del corte, pero la ventana de transición ya terminó
+        assertThrows(JwtException.class, () -> keyRing.verify(legacyToken(cutover.minus(Duration.ofMinutes(5)))));
+    }
+
+    @Test
+    void rejectsLegacyTokensByDefault() {
+        JwtKeyRing keyRing = new JwtKeyRing(SECRET, false, "", ACCESS_MILLIS, REFRESH_MILLIS);
+
+        assertThrows(JwtException.class, () -> keyRing.verify(legacyToken(Instant.now())));
+    }
+
+    /** Token firmado con jwt.secret y sin kid, como los emitidos antes de las claves rotativas. */
+    private static String legacyToken(Instant issuedAt) {
+        return Jwts.builder()
+                .subject("ana")
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(Instant.now().plus(Duration.ofDays(30))))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+}
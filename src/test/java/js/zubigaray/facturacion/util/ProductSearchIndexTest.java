@@ -0,0 +1,117 @@
+package js.zubigaray.facturacion.util;
+
+import js.zubigaray.facturacion.dto.ProductResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Búsqueda por nombre sobre el índice de n-gramas: normalización, prefijos cortos, intersección de términos,
+ * orden por relevancia, modificaciones con compactación y paginación.
+ */
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void normalizesCaseAccentsAndPunctuation() {
+        assertThat(ProductSearchIndex.normalize("  Té-Verde!! ÑANDÚ ")).isEqualTo("te verde nandu");
+
+        index.upsert(1, "Café Orgánico", 10);
+
+        assertThat(ids("cafe organico")).containsExactly(1L);
+        assertThat(ids("CAFÉ")).containsExactly(1L);
+        assertThat(ids("orgánico,")).containsExactly(1L);
+        // El nombre original se devuelve sin normalizar
+        assertThat(index.search("cafe", 0, 10).items().get(0).getName()).isEqualTo("Café Orgánico");
+    }
+
+    @Test
+    void shortTermsMatchOnlyAtTheStartOfAWord() {
+        index.upsert(1, "Zapatilla Andes", 100);
+        index.upsert(2, "Mate de calabaza", 20);
+
+        assertThat(ids("z")).containsExactly(1L);
+        assertThat(ids("a")).containsExactly(1L);
+        // "de" es una palabra de 2 y no coincide dentro de "andes"
+        assertThat(ids("de")).containsExactly(2L);
+        assertThat(ids("at")).isEmpty();
+        // Desde 3 caracteres el término se busca como subcadena
+        assertThat(ids("til")).containsExactly(1L);
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        index.upsert(1, "Mate de calabaza", 20);
+        index.upsert(2, "Mate de madera", 15);
+        index.upsert(3, "Bombilla de madera", 8);
+
+        assertThat(ids("mate madera")).containsExactly(2L);
+        assertThat(ids("madera")).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(ids("mate vidrio")).isEmpty();
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordThenSubstring() {
+        index.upsert(1, "Yerbamate", 1);
+        index.upsert(2, "Set de mate", 1);
+        index.upsert(3, "Mate imperial", 1);
+        index.upsert(4, "Mate", 1);
+
+        assertThat(ids("mate")).containsExactly(4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void updatesAndRemovalsAreVisibleBeforeAndAfterCompaction() {
+        for (long id = 1; id <= 2000; id++) {
+            index.upsert(id, "Producto " + id, id);
+        }
+        index.upsert(1, "Bombilla", 5);
+        for (long id = 2; id <= 1200; id++) {
+            index.remove(id);
+        }
+
+        assertThat(index.size()).isEqualTo(801);
+        assertThat(index.needsCompaction()).isTrue();
+        assertThat(ids("bombilla")).containsExactly(1L);
+        assertThat(ids("producto 1 ")).doesNotContain(1L);
+        assertThat(ids("producto 2")).doesNotContain(2L);
+
+        ProductSearchIndex compacted = index.compact();
+        assertThat(compacted.size()).isEqualTo(801);
+        assertThat(compacted.needsCompaction()).isFalse();
+        assertThat(compacted.search("bombilla", 0, 10).items())
+                .containsExactly(new ProductResponse(1L, "Bombilla", 5));
+        assertThat(compacted.search("producto", 0, 10).totalHits()).isEqualTo(800);
+        assertThat(compacted.search("producto 1500", 0, 10).items().get(0).getId()).isEqualTo(1500L);
+    }
+
+    @Test
+    void pagesSplitTheRankingAndEndPastTotalHits() {
+        for (long id = 1; id <= 5; id++) {
+            index.upsert(id, "Mate " + "x".repeat((int) id), 1);
+        }
+
+        List<Long> all = ids("mate");
+        List<Long> paged = new ArrayList<>();
+        paged.addAll(page(0, 2));
+        paged.addAll(page(2, 2));
+        paged.addAll(page(4, 2));
+
+        assertThat(paged).isEqualTo(all);
+        assertThat(page(4, 2)).hasSize(1);
+        assertThat(index.search("mate", 10, 2).items()).isEmpty();
+        assertThat(index.search("mate", 10, 2).totalHits()).isEqualTo(5);
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 0, 100).items().stream().map(ProductResponse::getId).toList();
+    }
+
+    private List<Long> page(int offset, int limit) {
+        return index.search("mate", offset, limit).items().stream().map(ProductResponse::getId).toList();
+    }
+}